@@ -0,0 +1,120 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.service.CalculadoraRentabilidade;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rentabilidade (XIRR e TWR) de uma carteira inteira como no GET /api/investimentos/rentabilidade:
+ * cada investimento, cada tipo (7) e a carteira toda, a partir dos movimentos ja em arrays
+ * (sem o banco). Cada investimento tem aportes mensais, alguns resgates e uma avaliacao
+ * por trimestre, ao longo de "movimentosPorAtivo" movimentos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculadoraRentabilidadeBenchmark {
+
+    private static final int TIPOS = 7;
+
+    @Param({"10", "300"})
+    public int ativos;
+
+    @Param({"12", "60"})
+    public int movimentosPorAtivo;
+
+    private int[] dias;
+    private int[] indicesAtivos;
+    private long[] valores;
+    private boolean[] avaliacoes;
+    private int[][] porAtivo;
+    private int[][] porTipo;
+    private int[] carteira;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        int n = ativos * movimentosPorAtivo;
+        long[] chaves = new long[n];
+        long[] valoresGerados = new long[n];
+        int m = 0;
+        for (int ativo = 0; ativo < ativos; ativo++) {
+            int dia = 18000 + aleatorio.nextInt(365);
+            double posicao = 0;
+            for (int k = 0; k < movimentosPorAtivo; k++, m++) {
+                long valor;
+                byte tipo;
+                if (k % 3 == 2) {
+                    posicao *= 1 + aleatorio.nextDouble(-0.05, 0.08);
+                    valor = Math.round(posicao);
+                    tipo = 2;
+                } else if (k > 0 && aleatorio.nextInt(10) == 0) {
+                    valor = -Math.round(posicao * 0.1);
+                    posicao += valor;
+                    tipo = 1;
+                } else {
+                    valor = 10_000 + aleatorio.nextInt(100_000);
+                    posicao += valor;
+                    tipo = 0;
+                }
+                // Ordena por dia e depois pela ordem de criacao: chave = dia | ativo | k
+                chaves[m] = ((long) dia << 32) | ((long) ativo << 12) | k;
+                valoresGerados[m] = (valor << 2) | tipo;
+                dia += 20 + aleatorio.nextInt(20);
+            }
+        }
+
+        Integer[] ordem = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> Long.compare(chaves[a], chaves[b]));
+
+        dias = new int[n];
+        indicesAtivos = new int[n];
+        valores = new long[n];
+        avaliacoes = new boolean[n];
+        int[] tamanhos = new int[ativos];
+        int[] tamanhosTipos = new int[TIPOS];
+        porAtivo = new int[ativos][movimentosPorAtivo];
+        porTipo = new int[TIPOS][];
+        for (int t = 0; t < TIPOS; t++) {
+            porTipo[t] = new int[n];
+        }
+        carteira = new int[n];
+        for (int i = 0; i < n; i++) {
+            int origem = ordem[i];
+            int ativo = (int) ((chaves[origem] >>> 12) & 0xFFFFF);
+            dias[i] = (int) (chaves[origem] >>> 32);
+            indicesAtivos[i] = ativo;
+            valores[i] = valoresGerados[origem] >> 2;
+            avaliacoes[i] = (valoresGerados[origem] & 3) == 2;
+            porAtivo[ativo][tamanhos[ativo]++] = i;
+            porTipo[ativo % TIPOS][tamanhosTipos[ativo % TIPOS]++] = i;
+            carteira[i] = i;
+        }
+        for (int t = 0; t < TIPOS; t++) {
+            porTipo[t] = Arrays.copyOf(porTipo[t], tamanhosTipos[t]);
+        }
+    }
+
+    @Benchmark
+    public double carteiraInteira() {
+        CalculadoraRentabilidade calculadora = new CalculadoraRentabilidade(dias, indicesAtivos, valores,
+                avaliacoes, ativos);
+        double soma = 0;
+        for (int[] grupo : porAtivo) {
+            soma += calculadora.calcular(grupo, grupo.length).xirr();
+        }
+        for (int[] grupo : porTipo) {
+            soma += calculadora.calcular(grupo, grupo.length).xirr();
+        }
+        return soma + calculadora.calcular(carteira, carteira.length).twr();
+    }
+}
@@ -0,0 +1,129 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.model.CategoriaDespesa;
+import com.financeiro.model.Despesa;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.Opcao;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+import com.financeiro.service.DashboardAccumulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara o calculo dos indicadores de despesas do dashboard:
+ * - streams: o pipeline antigo (cinco passadas + groupingBy com Double, comparando o texto
+ *   de categoria/tipo/status como era antes dos enums)
+ * - acumulador: o DashboardAccumulator (uma passada, arrays de long em centavos indexados pelo ordinal)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardAccumulatorBenchmark {
+
+    private static final CategoriaDespesa[] CATEGORIAS = CategoriaDespesa.values();
+    private static final TipoLancamento[] TIPOS = TipoLancamento.values();
+    private static final StatusDespesa[] STATUS = StatusDespesa.values();
+
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private List<Despesa> despesas;
+
+    @Setup
+    public void gerarDespesas() {
+        Random random = new Random(42);
+        despesas = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            Despesa d = new Despesa();
+            d.setData(LocalDate.of(2026, 1, 1 + random.nextInt(28)));
+            d.setCategoria(CATEGORIAS[random.nextInt(CATEGORIAS.length)]);
+            d.setTipo(TIPOS[random.nextInt(TIPOS.length)]);
+            d.setStatus(STATUS[random.nextInt(STATUS.length)]);
+            d.setValor(Dinheiro.deCentavos(random.nextInt(100001)));
+            despesas.add(d);
+        }
+    }
+
+    @Benchmark
+    public void streams(Blackhole bh) {
+        double totalDespesas = despesas.stream()
+                .mapToDouble(d -> reais(d))
+                .sum();
+        double gastoInvestimentos = despesas.stream()
+                .filter(d -> "Investimentos".equalsIgnoreCase(texto(d.getCategoria())))
+                .mapToDouble(d -> reais(d))
+                .sum();
+
+        List<Map<String, Object>> gastosPorCategoria = new ArrayList<>();
+        Map<String, Double> categoriasMap = despesas.stream()
+                .collect(Collectors.groupingBy(
+                        d -> texto(d.getCategoria()),
+                        Collectors.summingDouble(d -> reais(d))
+                ));
+        for (Map.Entry<String, Double> entry : categoriasMap.entrySet()) {
+            Map<String, Object> categoria = new HashMap<>();
+            categoria.put("categoria", entry.getKey());
+            categoria.put("valor", entry.getValue());
+            double percentual = totalDespesas > 0 ? (entry.getValue() / totalDespesas) * 100 : 0;
+            categoria.put("percentual", Math.round(percentual * 100.0) / 100.0);
+            gastosPorCategoria.add(categoria);
+        }
+        gastosPorCategoria.sort((a, b) ->
+                Double.compare((Double) b.get("valor"), (Double) a.get("valor")));
+
+        double despesasPendentes = despesas.stream()
+                .filter(d -> "Pendente".equalsIgnoreCase(texto(d.getStatus())))
+                .mapToDouble(d -> reais(d))
+                .sum();
+        double despesasFixas = despesas.stream()
+                .filter(d -> "Fixa".equalsIgnoreCase(texto(d.getTipo())))
+                .mapToDouble(d -> reais(d))
+                .sum();
+        double despesasVariaveis = despesas.stream()
+                .filter(d -> "Variavel".equalsIgnoreCase(texto(d.getTipo())) || "Variável".equalsIgnoreCase(texto(d.getTipo())))
+                .filter(d -> !"Investimentos".equalsIgnoreCase(texto(d.getCategoria())))
+                .mapToDouble(d -> reais(d))
+                .sum();
+
+        bh.consume(totalDespesas);
+        bh.consume(gastoInvestimentos);
+        bh.consume(gastosPorCategoria);
+        bh.consume(despesasPendentes);
+        bh.consume(despesasFixas);
+        bh.consume(despesasVariaveis);
+    }
+
+    // Texto da opcao, como ficava na entidade antes dos enums
+    private static String texto(Opcao opcao) {
+        return opcao != null ? opcao.getRotulo() : null;
+    }
+
+    // Valor em reais como o pipeline antigo usava (double)
+    private static double reais(Despesa d) {
+        return d.getValor() != null ? d.getValor().centavos() / 100.0 : 0;
+    }
+
+    @Benchmark
+    public void acumulador(Blackhole bh) {
+        DashboardAccumulator acumulador = new DashboardAccumulator();
+        for (Despesa d : despesas) {
+            acumulador.adicionar(d);
+        }
+
+        bh.consume(acumulador.getTotal());
+        bh.consume(acumulador.getInvestimentos());
+        bh.consume(acumulador.getGastosPorCategoria());
+        bh.consume(acumulador.getPendentes());
+        bh.consume(acumulador.getFixas());
+        bh.consume(acumulador.getVariaveis());
+    }
+}
@@ -0,0 +1,164 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.FinanceiroApplication;
+import com.financeiro.config.UsuarioLogado;
+import com.financeiro.model.CategoriaDespesa;
+import com.financeiro.model.FormaPagamento;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+import com.financeiro.service.DashboardCache;
+import com.financeiro.service.DashboardService;
+import com.financeiro.service.ResumoMensalService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do DashboardService.getDashboard com o contexto Spring de verdade
+ * (JPA, repositories, @Timed), sobre um H2 em modo PostgreSQL com dados sinteticos:
+ * - comCache: o mes ja esta no DashboardCache
+ * - semCache: o cache eh limpo antes de cada chamada (le o resumo mensal e os investimentos,
+ *   em paralelo ou nao conforme consultasParalelas)
+ * - recalcularResumo: refaz o resumo do mes a partir de todas as despesas e receitas
+ *
+ * Para medir contra um PostgreSQL de verdade (com as migracoes do Flyway), passe
+ * -Dbenchmark.banco.url=jdbc:postgresql://... (e .usuario/.senha) para o JMH.
+ * ATENCAO: o benchmark apaga todos os dados desse banco; use um banco so para isso.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardServiceBenchmark {
+
+    private static final long USUARIO_ID = 1L;
+    private static final int ANO = 2026;
+    private static final int MES = 3;
+
+    private static final CategoriaDespesa[] CATEGORIAS = CategoriaDespesa.values();
+
+    @Param({"1000", "100000"})
+    private int despesasPorMes;
+
+    @Param({"true", "false"})
+    private boolean consultasParalelas;
+
+    private ConfigurableApplicationContext contexto;
+    private DashboardService dashboardService;
+    private DashboardCache dashboardCache;
+    private ResumoMensalService resumoMensalService;
+
+    @Setup
+    public void preparar() {
+        List<String> propriedades = new ArrayList<>(List.of(
+                // Nao carrega o application.properties
+                "spring.config.name=benchmark",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "dashboard.consultas.paralelas=" + consultasParalelas,
+                "jwt.secret=benchmark-benchmark-benchmark-benchmark-benchmark-benchmark-1234",
+                "jwt.expiration=86400000"));
+        String urlBanco = System.getProperty("benchmark.banco.url");
+        if (urlBanco != null) {
+            propriedades.addAll(List.of(
+                    "spring.datasource.url=" + urlBanco,
+                    "spring.datasource.username=" + System.getProperty("benchmark.banco.usuario", "postgres"),
+                    "spring.datasource.password=" + System.getProperty("benchmark.banco.senha", "postgres"),
+                    "spring.jpa.hibernate.ddl-auto=validate"));
+        } else {
+            propriedades.addAll(List.of(
+                    "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.username=sa",
+                    "spring.jpa.hibernate.ddl-auto=create",
+                    "spring.flyway.enabled=false",
+                    "financeiro.schema.verificar-indices=false"));
+        }
+        contexto = new SpringApplicationBuilder(FinanceiroApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(propriedades.toArray(String[]::new))
+                .run();
+
+        dashboardService = contexto.getBean(DashboardService.class);
+        dashboardCache = contexto.getBean(DashboardCache.class);
+        resumoMensalService = contexto.getBean(ResumoMensalService.class);
+        popular(contexto.getBean(JdbcTemplate.class));
+        resumoMensalService.recalcular(USUARIO_ID, ANO, MES);
+
+        // O usuario logado vale para todas as threads do JMH
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UsuarioLogado(USUARIO_ID, "benchmark@financeiro.com"), null, new ArrayList<>()));
+    }
+
+    @TearDown
+    public void encerrar() {
+        SecurityContextHolder.clearContext();
+        contexto.close();
+    }
+
+    // Um usuario, algumas receitas e investimentos e "despesasPorMes" despesas no mes medido
+    // (valores em centavos, categoria/tipo/status pelo codigo dos enums)
+    private void popular(JdbcTemplate jdbc) {
+        for (String tabela : List.of("resumo_mensal", "metas", "investimentos", "despesas", "receitas", "usuarios")) {
+            jdbc.update("DELETE FROM " + tabela);
+        }
+        jdbc.update("INSERT INTO usuarios (id, nome, email, senha, versao_dados) VALUES (?, ?, ?, ?, 0)",
+                USUARIO_ID, "Benchmark", "benchmark@financeiro.com", "x");
+
+        Random random = new Random(42);
+        LocalDate inicio = LocalDate.of(ANO, MES, 1);
+        List<Object[]> despesas = new ArrayList<>(despesasPorMes);
+        for (int i = 0; i < despesasPorMes; i++) {
+            despesas.add(new Object[]{
+                    (long) i + 1,
+                    Date.valueOf(inicio.plusDays(random.nextInt(inicio.lengthOfMonth()))),
+                    "Despesa " + i,
+                    CATEGORIAS[random.nextInt(CATEGORIAS.length)].getCodigo(),
+                    (random.nextBoolean() ? TipoLancamento.FIXA : TipoLancamento.VARIAVEL).getCodigo(),
+                    FormaPagamento.PIX.getCodigo(),
+                    (long) random.nextInt(50001),
+                    (random.nextInt(4) == 0 ? StatusDespesa.PENDENTE : StatusDespesa.PAGO).getCodigo(),
+                    USUARIO_ID});
+        }
+        jdbc.batchUpdate("INSERT INTO despesas (id, data, descricao, categoria, tipo, forma_pagamento, valor, status, usuario_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", despesas);
+
+        for (int i = 0; i < 5; i++) {
+            jdbc.update("INSERT INTO receitas (id, data, fonte, tipo, valor, usuario_id) VALUES (?, ?, ?, ?, ?, ?)",
+                    (long) i + 1, Date.valueOf(inicio.plusDays(i)), "Receita " + i, TipoLancamento.FIXA.getCodigo(), 500000L, USUARIO_ID);
+            jdbc.update("INSERT INTO investimentos (id, tipo, descricao, valor_investido, rentabilidade_real, status, usuario_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)", (long) i + 1, "CDB", "Investimento " + i, 100000L, 10.0, "Ativo", USUARIO_ID);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> comCache() {
+        return dashboardService.getDashboard(MES, ANO);
+    }
+
+    @Benchmark
+    public Map<String, Object> semCache() {
+        dashboardCache.invalidarMes(USUARIO_ID, ANO, MES);
+        dashboardCache.invalidarInvestimentos(USUARIO_ID);
+        return dashboardService.getDashboard(MES, ANO);
+    }
+
+    @Benchmark
+    public void recalcularResumo() {
+        resumoMensalService.recalcular(USUARIO_ID, ANO, MES);
+    }
+}
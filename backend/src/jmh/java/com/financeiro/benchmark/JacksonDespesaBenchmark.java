@@ -0,0 +1,71 @@
+package com.financeiro.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.financeiro.model.CategoriaDespesa;
+import com.financeiro.model.Despesa;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.FormaPagamento;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializacao de listas de Despesa com Jackson (mesma configuracao do Spring Boot):
+ * - lista: a lista inteira em um JSON (GET /api/despesas)
+ * - ndjson: um JSON por linha no mesmo stream (GET /api/despesas/exportar)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonDespesaBenchmark {
+
+    @Param({"100", "10000"})
+    private int quantidade;
+
+    private List<Despesa> despesas;
+    private ObjectMapper objectMapper;
+    private ObjectWriter escritorDespesa;
+    private ByteArrayOutputStream saida;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        escritorDespesa = objectMapper.writerFor(Despesa.class);
+        saida = new ByteArrayOutputStream(quantidade * 256);
+
+        despesas = new ArrayList<>(quantidade);
+        LocalDate inicio = LocalDate.of(2026, 3, 1);
+        for (int i = 0; i < quantidade; i++) {
+            despesas.add(new Despesa((long) i + 1, inicio.plusDays(i % 31), "Despesa " + i, CategoriaDespesa.ALIMENTACAO,
+                    i % 2 == 0 ? TipoLancamento.FIXA : TipoLancamento.VARIAVEL, FormaPagamento.PIX,
+                    Dinheiro.deCentavos(1000 + i * 100L), i % 4 == 0 ? StatusDespesa.PENDENTE : StatusDespesa.PAGO, 1L));
+        }
+    }
+
+    @Benchmark
+    public byte[] lista() throws IOException {
+        return objectMapper.writeValueAsBytes(despesas);
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        saida.reset();
+        for (Despesa despesa : despesas) {
+            escritorDespesa.writeValue(saida, despesa);
+            saida.write('\n');
+        }
+        return saida.size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.config.JwtFilter;
+import com.financeiro.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisicao da autenticacao JWT:
+ * - antigo: validarToken + getEmail, recriando chave e parser a cada chamada
+ * - semCache: o JwtFilter atual com o cache de tokens desligado (um parse por requisicao)
+ * - comCache: o JwtFilter atual com o token ja verificado no cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-benchmark-benchmark-benchmark-benchmark-benchmark-1234";
+
+    private String token;
+    private JwtFilter filtroComCache;
+    private JwtFilter filtroSemCache;
+
+    @Setup
+    public void preparar() {
+        JwtUtil comCache = criarJwtUtil(10000);
+        JwtUtil semCache = criarJwtUtil(0);
+        token = comCache.gerarToken("benchmark@financeiro.com", 1L);
+
+        filtroComCache = criarFiltro(comCache);
+        filtroSemCache = criarFiltro(semCache);
+    }
+
+    // Filtro com o registro de metricas em memoria (o timer da verificacao entra na conta)
+    static JwtFilter criarFiltro(JwtUtil jwtUtil) {
+        JwtFilter filtro = new JwtFilter();
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filtro, "meterRegistry", new SimpleMeterRegistry());
+        filtro.init();
+        return filtro;
+    }
+
+    static JwtUtil criarJwtUtil(int tamanhoCache) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTamanhoMaximo", tamanhoCache);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String antigo() {
+        // Mesmo fluxo do filtro antes da mudanca: duas verificacoes completas
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token);
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse semCache() throws Exception {
+        return filtrar(filtroSemCache);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse comCache() throws Exception {
+        return filtrar(filtroComCache);
+    }
+
+    private MockHttpServletResponse filtrar(JwtFilter filtro) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+}
@@ -0,0 +1,48 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.config.JwtUtil;
+import com.financeiro.config.UsuarioLogado;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das operacoes do JwtUtil:
+ * - gerarToken: login e registro
+ * - validarSemCache: verificacao HMAC completa (cache de tokens desligado)
+ * - validarComCache: token ja verificado no cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil comCache;
+    private JwtUtil semCache;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        comCache = JwtFilterBenchmark.criarJwtUtil(10000);
+        semCache = JwtFilterBenchmark.criarJwtUtil(0);
+        token = comCache.gerarToken("benchmark@financeiro.com", 1L);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return comCache.gerarToken("benchmark@financeiro.com", 1L);
+    }
+
+    @Benchmark
+    public UsuarioLogado validarSemCache() {
+        return semCache.getUsuarioLogado(token);
+    }
+
+    @Benchmark
+    public UsuarioLogado validarComCache() {
+        return comCache.getUsuarioLogado(token);
+    }
+}
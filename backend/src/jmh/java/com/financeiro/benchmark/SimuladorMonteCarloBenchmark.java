@@ -0,0 +1,63 @@
+package com.financeiro.benchmark;
+
+import com.financeiro.service.SimuladorMonteCarlo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos por segundo do Monte Carlo do planejamento (SimuladorMonteCarlo.simular),
+ * com 100k caminhos por chamada e pontos anuais como no endpoint:
+ * - carteira: "rendaFixa" (uma classe com pouca volatilidade) ou "misto" (CDB, Acoes, FIIs, Cripto)
+ * - threads: 1 ou uma por CPU (0)
+ * O resultado sai em caminhos/s (cada chamada conta como CAMINHOS operacoes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimuladorMonteCarloBenchmark {
+
+    private static final int CAMINHOS = 100_000;
+
+    @Param({"12", "120"})
+    public int meses;
+
+    @Param({"rendaFixa", "misto"})
+    public String carteira;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private SimuladorMonteCarlo simulador;
+    private ForkJoinPool pool;
+    private int[] pontos;
+    private long semente;
+
+    @Setup
+    public void preparar() {
+        simulador = "misto".equals(carteira)
+                ? new SimuladorMonteCarlo(new double[]{50, 25, 15, 10},
+                        new double[]{0.11, 0.12, 0.10, 0.15}, new double[]{0.01, 0.25, 0.15, 0.70})
+                : new SimuladorMonteCarlo(new double[]{1}, new double[]{0.11}, new double[]{0.04});
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        pontos = new int[(meses + 11) / 12];
+        for (int i = 0; i < pontos.length; i++) {
+            pontos[i] = Math.min((i + 1) * 12, meses);
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAMINHOS)
+    public SimuladorMonteCarlo.Resultado simular() {
+        return simulador.simular(100_000, 50_000, pontos, CAMINHOS, semente++, 10_000_000, pool);
+    }
+}
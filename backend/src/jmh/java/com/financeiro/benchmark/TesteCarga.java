@@ -0,0 +1,133 @@
+package com.financeiro.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de carga simples contra a API rodando (nao eh benchmark JMH).
+ * Cada cliente faz requisicoes uma atras da outra durante o tempo definido;
+ * no fim mostra requisicoes por segundo, p50, p99 e erros para cada quantidade de clientes.
+ *
+ * mvn -Pbenchmark compile exec:java -Dexec.mainClass=com.financeiro.benchmark.TesteCarga \
+ *     -Dexec.args="--url http://127.0.0.1:8080 --clientes 200,1000,5000 --duracao 30"
+ *
+ * Opcoes: --url, --clientes, --duracao (s), --aquecimento (s), --caminho, --email, --senha
+ */
+public class TesteCarga {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args);
+        String url = opcoes.getOrDefault("url", "http://127.0.0.1:8080");
+        String caminho = opcoes.getOrDefault("caminho", "/api/despesas?mes=3&ano=2026");
+        int duracao = Integer.parseInt(opcoes.getOrDefault("duracao", "30"));
+        int aquecimento = Integer.parseInt(opcoes.getOrDefault("aquecimento", "5"));
+        String email = opcoes.getOrDefault("email", "carga@financeiro.com");
+        String senha = opcoes.getOrDefault("senha", "carga");
+
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        String token = autenticar(cliente, url, email, senha);
+
+        System.out.printf("%-8s %10s %10s %10s %8s%n", "clientes", "req/s", "p50 (ms)", "p99 (ms)", "erros");
+        for (String quantidade : opcoes.getOrDefault("clientes", "200,1000,5000").split(",")) {
+            rodar(cliente, URI.create(url + caminho), token, Integer.parseInt(quantidade.trim()), aquecimento, duracao);
+        }
+    }
+
+    // Roda "clientes" clientes em paralelo e mostra o resultado (so conta o que acontece depois do aquecimento)
+    private static void rodar(HttpClient cliente, URI uri, String token, int clientes,
+                              int aquecimento, int duracao) throws InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        long inicioMedicao = System.nanoTime() + aquecimento * 1_000_000_000L;
+        long fim = inicioMedicao + duracao * 1_000_000_000L;
+        long[][] latencias = new long[clientes][];
+        LongAdder erros = new LongAdder();
+        CountDownLatch terminaram = new CountDownLatch(clientes);
+
+        for (int i = 0; i < clientes; i++) {
+            int indice = i;
+            Thread thread = new Thread(() -> {
+                long[] medidas = new long[1024];
+                int quantidade = 0;
+                while (System.nanoTime() < fim) {
+                    long inicio = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    if (inicio < inicioMedicao) {
+                        continue;
+                    }
+                    if (!ok) {
+                        erros.increment();
+                        continue;
+                    }
+                    if (quantidade == medidas.length) {
+                        medidas = Arrays.copyOf(medidas, quantidade * 2);
+                    }
+                    medidas[quantidade++] = System.nanoTime() - inicio;
+                }
+                latencias[indice] = Arrays.copyOf(medidas, quantidade);
+                terminaram.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        terminaram.await();
+
+        long[] todas = Arrays.stream(latencias).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-8d %10.1f %10.1f %10.1f %8d%n", clientes, todas.length / (double) duracao,
+                percentil(todas, 0.50), percentil(todas, 0.99), erros.sum());
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicao = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(posicao, 0)] / 1_000_000.0;
+    }
+
+    // Faz login (registrando o usuario na primeira vez) e retorna o token
+    private static String autenticar(HttpClient cliente, String url, String email, String senha) throws Exception {
+        String corpo = "{\"nome\":\"Carga\",\"email\":\"" + email + "\",\"senha\":\"" + senha + "\"}";
+        for (String rota : List.of("/api/auth/login", "/api/auth/registro")) {
+            HttpResponse<String> resposta = cliente.send(HttpRequest.newBuilder(URI.create(url + rota))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher token = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(resposta.body());
+            if (resposta.statusCode() == 200 && token.find()) {
+                return token.group(1);
+            }
+        }
+        throw new IllegalStateException("Nao foi possivel autenticar " + email + " em " + url);
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        List<String> lista = new ArrayList<>(Arrays.asList(args));
+        for (int i = 0; i + 1 < lista.size(); i += 2) {
+            opcoes.put(lista.get(i).replaceFirst("^--", ""), lista.get(i + 1));
+        }
+        return opcoes;
+    }
+}
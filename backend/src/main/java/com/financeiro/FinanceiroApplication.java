@@ -1,20 +1,32 @@
 package com.financeiro;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class FinanceiroApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(FinanceiroApplication.class);
+
     public static void main(String[] args) {
         ConfigurableApplicationContext context = SpringApplication.run(FinanceiroApplication.class, args);
         Environment env = context.getEnvironment();
         String porta = env.getProperty("server.port", "8080");
-        System.out.println("===========================================");
-        System.out.println("  Sistema Financeiro rodando na porta " + porta);
-        System.out.println("===========================================");
+        boolean threadsVirtuais = env.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        log.atInfo().addKeyValue("porta", porta).addKeyValue("java", Runtime.version().feature())
+                .addKeyValue("threadsVirtuais", threadsVirtuais).log("Sistema Financeiro rodando");
+
+        // O Spring ignora spring.threads.virtual.enabled abaixo do Java 21
+        if (threadsVirtuais && Runtime.version().feature() < 21) {
+            log.atWarn().addKeyValue("java", Runtime.version().feature())
+                    .log("Threads virtuais precisam de Java 21; rodando com o pool de threads normal");
+        }
     }
 }
@@ -0,0 +1,106 @@
+package com.financeiro.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Conta quantas linhas (entidades) o Hibernate carregou do banco em cada requisicao
+ * e registra no fim dela, na metrica financeiro.requisicao.linhas (por endpoint).
+ * Ajuda a achar endpoints que trazem muito mais dados do que devolvem.
+ */
+@Component
+public class ContadorLinhasFilter extends OncePerRequestFilter implements PostLoadEventListener {
+
+    // Contador da requisicao atual (cada requisicao roda em uma thread; ver naRequisicaoAtual)
+    private static final ThreadLocal<LongAdder> LINHAS = new ThreadLocal<>();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Registra este filtro como listener de "entidade carregada" do Hibernate
+    @PostConstruct
+    public void init() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        LongAdder linhas = LINHAS.get();
+        if (linhas != null) {
+            linhas.increment();
+        }
+    }
+
+    /**
+     * Faz a tarefa contar as linhas no contador da requisicao da thread atual,
+     * mesmo quando ela roda em outra thread (ex: consultas do dashboard em paralelo).
+     */
+    public static <T> Supplier<T> naRequisicaoAtual(Supplier<T> tarefa) {
+        LongAdder linhas = LINHAS.get();
+        if (linhas == null) {
+            return tarefa;
+        }
+        return () -> {
+            LongAdder anterior = LINHAS.get();
+            LINHAS.set(linhas);
+            try {
+                return tarefa.get();
+            } finally {
+                // Se a tarefa rodou na propria thread da requisicao, devolve o contador dela
+                if (anterior != null) {
+                    LINHAS.set(anterior);
+                } else {
+                    LINHAS.remove();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        LongAdder linhas = new LongAdder();
+        LINHAS.set(linhas);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LINHAS.remove();
+            // Rota do controller (ex: /api/despesas/{id}); requisicoes sem rota nao entram
+            Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (rota != null) {
+                DistributionSummary.builder("financeiro.requisicao.linhas")
+                        .description("Linhas carregadas do banco por requisicao")
+                        .baseUnit("linhas")
+                        .tag("uri", rota.toString())
+                        .register(meterRegistry)
+                        .record(linhas.sum());
+            }
+        }
+    }
+}
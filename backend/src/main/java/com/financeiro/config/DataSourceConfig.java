@@ -0,0 +1,63 @@
+package com.financeiro.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuracao do banco com replica de leitura (so quando financeiro.replica.url existe;
+ * sem ela o Spring Boot cria o pool unico de sempre).
+ *
+ * - pool "primario": spring.datasource.* e spring.datasource.hikari.*
+ * - pool "replica": financeiro.replica.* (usuario e senha iguais aos do primario se
+ *   nao informados) e financeiro.replica.hikari.*, com conexoes somente leitura
+ *
+ * Para testar local basta apontar a replica para o mesmo banco: as leituras passam
+ * a usar outro pool, com conexoes em modo somente leitura.
+ */
+@Configuration
+@ConditionalOnProperty("financeiro.replica.url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("financeiro.replica.hikari")
+    public HikariDataSource dataSourceReplica(DataSourceProperties properties,
+                                              @Value("${financeiro.replica.url}") String url,
+                                              @Value("${financeiro.replica.username:}") String usuario,
+                                              @Value("${financeiro.replica.password:}") String senha) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(usuario.isEmpty() ? properties.determineUsername() : usuario);
+        dataSource.setPassword(usuario.isEmpty() ? properties.determinePassword() : senha);
+        // Uma escrita que chegue aqui por engano falha em vez de ir para a replica
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // DataSource usado pelo JPA, Flyway e JdbcTemplate
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica));
+    }
+}
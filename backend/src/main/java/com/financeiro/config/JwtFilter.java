@@ -1,5 +1,8 @@
 package com.financeiro.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +15,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro JWT - intercepta todas as requisicoes HTTP.
@@ -24,6 +28,19 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Tempo de verificacao do token (financeiro.jwt.verificacao), separado por resultado
+    private Timer tempoTokenValido;
+    private Timer tempoTokenInvalido;
+
+    @PostConstruct
+    public void init() {
+        tempoTokenValido = meterRegistry.timer("financeiro.jwt.verificacao", "resultado", "valido");
+        tempoTokenInvalido = meterRegistry.timer("financeiro.jwt.verificacao", "resultado", "invalido");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -37,16 +54,17 @@ public class JwtFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7); // Remove "Bearer "
 
             // Se o token eh valido, seta a autenticacao
-            if (jwtUtil.validarToken(token)) {
-                String email = jwtUtil.getEmail(token);
+            long inicio = System.nanoTime();
+            UsuarioLogado usuario = jwtUtil.getUsuarioLogado(token);
+            (usuario != null ? tempoTokenValido : tempoTokenInvalido)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
 
-                if (email != null && !email.isEmpty()) {
-                    // Cria a autenticacao com o email do usuario
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
+            if (usuario != null && usuario.email() != null && !usuario.email().isEmpty()) {
+                // Cria a autenticacao com o id e o email do usuario
+                UsernamePasswordAuthenticationToken auth =
+                        new UsernamePasswordAuthenticationToken(usuario, null, new ArrayList<>());
 
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
+                SecurityContextHolder.getContext().setAuthentication(auth);
             }
         }
 
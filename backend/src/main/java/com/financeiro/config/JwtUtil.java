@@ -1,79 +1,175 @@
 package com.financeiro.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Classe utilitaria para lidar com tokens JWT.
  * Gera, valida e extrai informacoes do token.
+ *
+ * A chave e o parser sao criados uma vez so, na inicializacao.
+ * Tokens ja verificados ficam em um cache (Caffeine, limitado por tamanho) ate
+ * expirarem, assim as requisicoes seguidas do frontend nao refazem a verificacao HMAC.
  */
 @Component
 public class JwtUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
+
     // Chave secreta definida no application.properties
     @Value("${jwt.secret}")
     private String secret;
 
+    // Nome do claim com o id do usuario
+    private static final String CLAIM_ID = "id";
+
     // Tempo de expiracao do token (24h por padrao)
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    // Cria a chave de assinatura a partir da string secreta
-    private SecretKey getChave() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // Quantos tokens verificados guardar no cache (0 desliga o cache)
+    @Value("${jwt.cache.tamanho-maximo:10000}")
+    private int cacheTamanhoMaximo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Chave de assinatura e parser (criados na inicializacao)
+    private SecretKey chave;
+    private JwtParser parser;
+
+    // Cache token -> usuario, valido ate a expiracao do token (null com o cache desligado)
+    private Cache<String, TokenVerificado> tokensVerificados;
+
+    // Entrada do cache: usuario do token e quando o token expira
+    private record TokenVerificado(UsuarioLogado usuario, long expiraEm) {
+    }
+
+    // Cria a chave de assinatura, o parser e o cache de tokens verificados
+    @PostConstruct
+    public void init() {
+        chave = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(chave)
+                .build();
+
+        if (cacheTamanhoMaximo > 0) {
+            tokensVerificados = Caffeine.newBuilder()
+                    .maximumSize(cacheTamanhoMaximo)
+                    .expireAfter(new ExpiraComOToken())
+                    .recordStats()
+                    .build();
+            // Acertos/erros, tamanho e remocoes (cache.gets{cache="jwt.tokens"}...)
+            CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "jwt.tokens");
+        }
     }
 
     /**
-     * Gera um token JWT para o email informado.
+     * Gera um token JWT para o usuario informado.
+     * O email vai no subject e o id no claim "id", assim o backend
+     * nao precisa ir no banco para descobrir o id a cada requisicao.
      * O token expira apos o tempo configurado.
      */
-    public String gerarToken(String email) {
+    public String gerarToken(String email, Long id) {
         return Jwts.builder()
                 .subject(email)
+                .claim(CLAIM_ID, id)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getChave())
+                .signWith(chave)
                 .compact();
     }
 
     /**
-     * Valida se o token eh valido (assinatura correta e nao expirado).
+     * Valida o token (assinatura e expiracao) e retorna os claims.
+     * Retorna null se o token for invalido.
      */
-    public boolean validarToken(String token) {
+    public Claims parse(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getChave())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
-            System.out.println("Token invalido: " + e.getMessage());
-            return false;
+            log.atDebug().addKeyValue("erro", e.getMessage()).log("Token invalido");
+            return null;
         }
     }
 
+    /**
+     * Valida se o token eh valido (assinatura correta e nao expirado).
+     */
+    public boolean validarToken(String token) {
+        return getUsuarioLogado(token) != null;
+    }
+
     /**
      * Extrai o email (subject) do token JWT.
      * Retorna null se o token for invalido.
      */
     public String getEmail(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getChave())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getSubject();
-        } catch (Exception e) {
-            System.out.println("Erro ao extrair email do token: " + e.getMessage());
+        UsuarioLogado usuario = getUsuarioLogado(token);
+        return usuario != null ? usuario.email() : null;
+    }
+
+    /**
+     * Extrai o usuario (id e email) do token JWT.
+     * Tokens antigos, sem o claim "id", voltam com id null.
+     * Retorna null se o token for invalido.
+     */
+    public UsuarioLogado getUsuarioLogado(String token) {
+        if (tokensVerificados != null) {
+            TokenVerificado emCache = tokensVerificados.getIfPresent(token);
+            if (emCache != null) {
+                return emCache.usuario();
+            }
+        }
+
+        Claims claims = parse(token);
+        if (claims == null) {
             return null;
         }
+
+        Number id = claims.get(CLAIM_ID, Number.class);
+        UsuarioLogado usuario = new UsuarioLogado(id != null ? id.longValue() : null, claims.getSubject());
+        if (tokensVerificados != null && claims.getExpiration() != null) {
+            tokensVerificados.put(token, new TokenVerificado(usuario, claims.getExpiration().getTime()));
+        }
+        return usuario;
+    }
+
+    // Cada token sai do cache quando ele mesmo expira (nao ha um ttl unico)
+    private static class ExpiraComOToken implements Expiry<String, TokenVerificado> {
+
+        @Override
+        public long expireAfterCreate(String token, TokenVerificado verificado, long agora) {
+            long restante = verificado.expiraEm() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, TokenVerificado verificado, long agora, long duracaoAtual) {
+            return expireAfterCreate(token, verificado, agora);
+        }
+
+        @Override
+        public long expireAfterRead(String token, TokenVerificado verificado, long agora, long duracaoAtual) {
+            return duracaoAtual;
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.financeiro.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuracao das metricas (Micrometer).
+ *
+ * As metricas de endpoints (http.server.requests) e de repositories
+ * (spring.data.repository.invocations) sao criadas pelo Spring Boot.
+ * Os services sao medidos pelo @Timed("financeiro.service"), que precisa do TimedAspect.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
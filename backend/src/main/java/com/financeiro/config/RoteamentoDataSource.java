@@ -0,0 +1,58 @@
+package com.financeiro.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que escolhe o banco de cada conexao:
+ * - transacoes somente leitura (@Transactional(readOnly = true)) vao para a replica
+ * - todo o resto (escritas, Flyway, consultas fora de transacao) vai para o primario
+ *
+ * Fica atras de um LazyConnectionDataSourceProxy (ver DataSourceConfig): a conexao
+ * de verdade so eh pega no primeiro comando SQL, quando a transacao ja foi marcada
+ * como somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    // Leituras que precisam ver o ultimo commit mesmo sendo somente leitura (ver noPrimario)
+    private static final ThreadLocal<Boolean> FORCAR_PRIMARIO = new ThreadLocal<>();
+
+    enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica) {
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && FORCAR_PRIMARIO.get() == null) {
+            return Destino.REPLICA;
+        }
+        return Destino.PRIMARIO;
+    }
+
+    /**
+     * Roda a leitura no primario mesmo em transacao somente leitura.
+     * Usado para o que vai para cache em memoria: um valor lido da replica atrasada
+     * ficaria no cache depois da invalidacao. Sem replica configurada nao muda nada.
+     */
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        if (FORCAR_PRIMARIO.get() != null) {
+            return leitura.get();
+        }
+        FORCAR_PRIMARIO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            FORCAR_PRIMARIO.remove();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.financeiro.config;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -11,9 +14,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
  * Configuracao de seguranca do Spring Security.
- * - Libera as rotas de autenticacao (/api/auth/**)
+ * - Libera as rotas de autenticacao (/api/auth/**) e o health check
+ * - O resto do Actuator (prometheus, metrics) so com o token de coleta (management.prometheus.token)
  * - Protege todas as outras rotas (precisa de token JWT)
  * - Desabilita CSRF (nao precisa para API REST)
  * - Usa sessao stateless (sem cookie de sessao, so JWT)
@@ -25,6 +32,10 @@ public class SecurityConfig {
     @Autowired
     private JwtFilter jwtFilter;
 
+    // Token que o Prometheus manda em "Authorization: Bearer ..."; vazio = coleta bloqueada
+    @Value("${management.prometheus.token:}")
+    private String tokenPrometheus;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -35,6 +46,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Libera rotas de autenticacao
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Libera o health check (usado pelo Render)
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Metricas (prometheus e metrics): so com o token de coleta. O JWT de usuario
+                        // nao serve, ja que qualquer um consegue um se registrando
+                        .requestMatchers("/actuator", "/actuator/**").access((autenticacao, contexto) ->
+                                new AuthorizationDecision(tokenDeColetaValido(contexto.getRequest())))
                         // Todas as outras rotas precisam de autenticacao
                         .anyRequest().authenticated()
                 )
@@ -50,9 +67,19 @@ public class SecurityConfig {
         return http.build();
     }
 
-    // Bean do BCrypt para criptografar senhas
+    // Compara em tempo constante para nao vazar o token pelo tempo de resposta
+    private boolean tokenDeColetaValido(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (tokenPrometheus.isBlank() || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(authHeader.substring(7).getBytes(StandardCharsets.UTF_8),
+                tokenPrometheus.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Bean do BCrypt para criptografar senhas (custo 10 = 2^10 rodadas)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${senha.bcrypt.custo:10}") int custo) {
+        return new BCryptPasswordEncoder(custo);
     }
 }
@@ -0,0 +1,14 @@
+package com.financeiro.config;
+
+/**
+ * Usuario autenticado da requisicao, colocado no SecurityContext pelo JwtFilter.
+ * Guarda o id e o email que vieram no token JWT.
+ * O id pode ser null em tokens antigos (que so tinham o email).
+ */
+public record UsuarioLogado(Long id, String email) {
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -0,0 +1,83 @@
+package com.financeiro.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifica na inicializacao se os indices das consultas por usuario existem.
+ * Se algum estiver faltando (migracao nao rodou, indice apagado na mao, etc.),
+ * a aplicacao nao sobe, em vez de rodar fazendo full scan nas tabelas.
+ */
+@Component
+public class VerificadorIndices implements ApplicationRunner {
+
+    // Tabela -> indices que precisam existir (criados em db/migration)
+    private static final Map<String, List<String>> INDICES_OBRIGATORIOS = Map.of(
+            "despesas", List.of("idx_despesas_usuario_data"),
+            "receitas", List.of("idx_receitas_usuario_data"),
+            "investimentos", List.of("idx_investimentos_usuario_status"),
+            "metas", List.of("idx_metas_usuario"),
+            "recorrencias", List.of("idx_recorrencias_usuario"),
+            "movimentos_investimento", List.of("idx_movimentos_investimento_usuario")
+    );
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Permite desligar a verificacao (ex: banco de testes sem os indices)
+    @Value("${financeiro.schema.verificar-indices:true}")
+    private boolean verificarIndices;
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        if (!verificarIndices) {
+            return;
+        }
+
+        List<String> faltando = new ArrayList<>();
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData metaData = conexao.getMetaData();
+            for (Map.Entry<String, List<String>> tabela : INDICES_OBRIGATORIOS.entrySet()) {
+                Set<String> existentes = buscarIndices(metaData, tabela.getKey());
+                for (String indice : tabela.getValue()) {
+                    if (!existentes.contains(indice)) {
+                        faltando.add(tabela.getKey() + "." + indice);
+                    }
+                }
+            }
+        }
+
+        if (!faltando.isEmpty()) {
+            throw new IllegalStateException("Indices obrigatorios nao encontrados no banco: " + faltando
+                    + ". Rode as migracoes do Flyway (db/migration) antes de subir a aplicacao.");
+        }
+    }
+
+    // Nomes (em minusculo) dos indices de uma tabela
+    private Set<String> buscarIndices(DatabaseMetaData metaData, String tabela) throws SQLException {
+        Set<String> indices = new HashSet<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tabela, false, true)) {
+            while (rs.next()) {
+                String nome = rs.getString("INDEX_NAME");
+                if (nome != null) {
+                    indices.add(nome.toLowerCase());
+                }
+            }
+        }
+        return indices;
+    }
+}
@@ -1,8 +1,13 @@
 package com.financeiro.controller;
 
 import com.financeiro.model.Usuario;
+import com.financeiro.service.SobrecargaException;
 import com.financeiro.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +21,8 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private UsuarioService usuarioService;
 
@@ -32,10 +39,12 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Nome, email e senha sao obrigatorios"));
             }
             Map<String, String> resposta = usuarioService.registrar(usuario);
-            System.out.println("Novo usuario registrado: " + usuario.getEmail());
+            log.atInfo().addKeyValue("email", usuario.getEmail()).log("Novo usuario registrado");
             return ResponseEntity.ok(resposta);
+        } catch (SobrecargaException e) {
+            return muitasRequisicoes(e);
         } catch (RuntimeException e) {
-            System.out.println("Erro no registro: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro no registro");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -53,11 +62,21 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Email e senha sao obrigatorios"));
             }
             Map<String, String> resposta = usuarioService.login(email, senha);
-            System.out.println("Login realizado: " + email);
+            log.atDebug().addKeyValue("email", email).log("Login realizado");
             return ResponseEntity.ok(resposta);
+        } catch (SobrecargaException e) {
+            return muitasRequisicoes(e);
         } catch (RuntimeException e) {
-            System.out.println("Erro no login: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro no login");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
+
+    // Pool de hash de senhas cheio: 429 para o cliente tentar de novo em seguida
+    private ResponseEntity<?> muitasRequisicoes(SobrecargaException e) {
+        log.atDebug().addKeyValue("erro", e.getMessage()).log("Autenticacao recusada por sobrecarga");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("erro", e.getMessage()));
+    }
 }
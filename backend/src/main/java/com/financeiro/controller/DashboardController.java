@@ -1,10 +1,18 @@
 package com.financeiro.controller;
 
 import com.financeiro.service.DashboardService;
+import com.financeiro.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,23 +23,91 @@ import java.util.Map;
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
+    private static final Logger log = LoggerFactory.getLogger(DashboardController.class);
+
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    // Maior periodo aceito na tendencia (10 anos)
+    private static final int MAXIMO_MESES_TENDENCIA = 120;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
     /**
      * GET /api/dashboard?mes=1&ano=2026
      * Retorna todos os indicadores do dashboard para o mes/ano.
      */
     @GetMapping
-    public ResponseEntity<?> getDashboard(@RequestParam int mes, @RequestParam int ano) {
+    public ResponseEntity<?> getDashboard(@RequestParam int mes, @RequestParam int ano, WebRequest request) {
         try {
             if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
             }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
             Map<String, Object> dashboard = dashboardService.getDashboard(mes, ano);
-            return ResponseEntity.ok(dashboard);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(dashboard);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao carregar dashboard");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/dashboard/tendencia?de=2025-01&ate=2025-12
+     * Retorna receitas, despesas, saldo e gastos por categoria de cada mes do periodo.
+     */
+    @GetMapping("/tendencia")
+    public ResponseEntity<?> getTendencia(@RequestParam String de, @RequestParam String ate,
+                                          WebRequest request) {
+        try {
+            YearMonth inicio;
+            YearMonth fim;
+            try {
+                inicio = YearMonth.parse(de);
+                fim = YearMonth.parse(ate);
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Use o formato AAAA-MM em 'de' e 'ate'"));
+            }
+            if (inicio.isAfter(fim)) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "'de' deve ser antes de 'ate'"));
+            }
+            if (inicio.plusMonths(MAXIMO_MESES_TENDENCIA).isBefore(fim.plusMonths(1))) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "O periodo pode ter no maximo "
+                        + MAXIMO_MESES_TENDENCIA + " meses"));
+            }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            List<Map<String, Object>> tendencia = dashboardService.getTendencia(inicio, fim);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(tendencia);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao carregar tendencia");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/dashboard/resumo/recalcular?mes=1&ano=2026
+     * Recalcula do zero o resumo mensal usado pelo dashboard.
+     */
+    @PostMapping("/resumo/recalcular")
+    public ResponseEntity<?> recalcularResumo(@RequestParam int mes, @RequestParam int ano) {
+        try {
+            if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
+            }
+            dashboardService.recalcularResumo(mes, ano);
+            return ResponseEntity.ok(Map.of("mensagem", "Resumo recalculado com sucesso"));
         } catch (Exception e) {
-            System.out.println("Erro ao carregar dashboard: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao recalcular resumo");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -1,11 +1,23 @@
 package com.financeiro.controller;
 
+import com.financeiro.model.CategoriaDespesa;
 import com.financeiro.model.Despesa;
 import com.financeiro.service.DespesaService;
+import com.financeiro.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -17,27 +29,89 @@ import java.util.Map;
 @RequestMapping("/api/despesas")
 public class DespesaController {
 
+    private static final Logger log = LoggerFactory.getLogger(DespesaController.class);
+
     @Autowired
     private DespesaService despesaService;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Maior pagina aceita na paginacao por cursor
+    private static final int LIMITE_MAXIMO = 1000;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
     /**
      * GET /api/despesas?mes=1&ano=2026
      * Lista despesas do mes/ano informado.
+     *
+     * GET /api/despesas?mes=1&ano=2026&after=120&limit=100
+     * Com "limit", retorna so uma pagina: {"itens": [...], "proximo": id}.
+     * Para buscar a pagina seguinte, passe o "proximo" no "after".
      */
     @GetMapping
-    public ResponseEntity<?> listar(@RequestParam int mes, @RequestParam int ano) {
+    public ResponseEntity<?> listar(@RequestParam int mes, @RequestParam int ano,
+                                    @RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest request) {
         try {
             if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
             }
+            if (limit != null && (limit < 1 || limit > LIMITE_MAXIMO)) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Limit deve ser entre 1 e " + LIMITE_MAXIMO));
+            }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            if (limit != null) {
+                List<Despesa> pagina = despesaService.listarPagina(mes, ano, after != null ? after : 0, limit);
+                return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(Pagina.de(pagina, limit, Despesa::getId));
+            }
             List<Despesa> despesas = despesaService.listar(mes, ano);
-            return ResponseEntity.ok(despesas);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(despesas);
         } catch (Exception e) {
-            System.out.println("Erro ao listar despesas: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar despesas");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
 
+    /**
+     * GET /api/despesas/exportar?mes=1&ano=2026
+     * Envia as despesas do mes em NDJSON (um JSON por linha), lendo do banco aos
+     * poucos. Serve para historicos grandes sem montar a lista inteira em memoria.
+     */
+    @GetMapping("/exportar")
+    public void exportar(@RequestParam int mes, @RequestParam int ano,
+                         HttpServletResponse response) throws IOException {
+        if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream saida = response.getOutputStream();
+        despesaService.exportar(mes, ano, despesa -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(despesa));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        saida.flush();
+    }
+
     /**
      * POST /api/despesas
      * Cria uma nova despesa.
@@ -45,14 +119,111 @@ public class DespesaController {
     @PostMapping
     public ResponseEntity<?> criar(@RequestBody Despesa despesa) {
         try {
-            if (despesa.getValor() == null || despesa.getValor() <= 0) {
+            if (despesa.getValor() == null || !despesa.getValor().positivo()) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Valor deve ser maior que zero"));
             }
             Despesa salva = despesaService.salvar(despesa);
-            System.out.println("Despesa criada: " + salva.getDescricao() + " - R$ " + salva.getValor());
+            log.atDebug().addKeyValue("id", salva.getId()).log("Despesa criada");
             return ResponseEntity.ok(salva);
         } catch (Exception e) {
-            System.out.println("Erro ao criar despesa: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao criar despesa");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/despesas/lote
+     * Importa varias despesas de uma vez (lista JSON).
+     * Retorna quantas foram inseridas e o erro de cada linha recusada.
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importar(@RequestBody List<Despesa> despesas) {
+        try {
+            Map<String, Object> resultado = despesaService.importar(despesas);
+            log.atInfo().addKeyValue("inseridas", resultado.get("inseridas"))
+                    .addKeyValue("recusadas", resultado.get("recusadas")).log("Importacao de despesas");
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao importar despesas");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/despesas/lote (Content-Type: text/csv)
+     * Importa despesas de um CSV com cabecalho (separador "," ou ";").
+     */
+    @PostMapping(value = "/lote", consumes = "text/csv")
+    public ResponseEntity<?> importarCsv(@RequestBody String csv) {
+        try {
+            Map<String, Object> resultado = despesaService.importarCsv(csv);
+            log.atInfo().addKeyValue("inseridas", resultado.get("inseridas"))
+                    .addKeyValue("recusadas", resultado.get("recusadas")).log("Importacao de despesas (CSV)");
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao importar despesas");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/despesas/lote/pagar  {"ids": [1, 2, 3]}
+     * Marca varias despesas como "Pago" em um unico UPDATE.
+     */
+    @PostMapping("/lote/pagar")
+    public ResponseEntity<?> pagar(@RequestBody Selecao selecao) {
+        try {
+            String erro = validar(selecao);
+            if (erro != null) {
+                return ResponseEntity.badRequest().body(Map.of("erro", erro));
+            }
+            int alteradas = despesaService.marcarComoPagas(selecao.ids());
+            log.atInfo().addKeyValue("alteradas", alteradas).log("Despesas marcadas como pagas");
+            return ResponseEntity.ok(Map.of("alteradas", alteradas));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao marcar despesas como pagas");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/despesas/lote/recategorizar  {"descricao": "uber", "categoria": "Transporte"}
+     * Muda a categoria de todas as despesas cuja descricao contem o texto (sem diferenciar maiusculas).
+     */
+    @PostMapping("/lote/recategorizar")
+    public ResponseEntity<?> recategorizar(@RequestBody Recategorizacao pedido) {
+        try {
+            if (pedido.descricao() == null || pedido.descricao().isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Descricao eh obrigatoria"));
+            }
+            if (pedido.categoria() == null) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Categoria eh obrigatoria"));
+            }
+            int alteradas = despesaService.recategorizar(pedido.descricao().trim(), pedido.categoria());
+            log.atInfo().addKeyValue("alteradas", alteradas).log("Despesas recategorizadas");
+            return ResponseEntity.ok(Map.of("alteradas", alteradas));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao recategorizar despesas");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/despesas/lote/deletar  {"ids": [1, 2, 3]}
+     * Deleta varias despesas em um unico DELETE.
+     */
+    @PostMapping("/lote/deletar")
+    public ResponseEntity<?> deletarVarias(@RequestBody Selecao selecao) {
+        try {
+            String erro = validar(selecao);
+            if (erro != null) {
+                return ResponseEntity.badRequest().body(Map.of("erro", erro));
+            }
+            int deletadas = despesaService.deletarVarias(selecao.ids());
+            log.atInfo().addKeyValue("deletadas", deletadas).log("Despesas deletadas em lote");
+            return ResponseEntity.ok(Map.of("deletadas", deletadas));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar despesas");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -67,7 +238,7 @@ public class DespesaController {
             Despesa atualizada = despesaService.atualizar(id, despesa);
             return ResponseEntity.ok(atualizada);
         } catch (Exception e) {
-            System.out.println("Erro ao atualizar despesa: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao atualizar despesa");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -82,8 +253,30 @@ public class DespesaController {
             despesaService.deletar(id);
             return ResponseEntity.ok(Map.of("mensagem", "Despesa deletada com sucesso"));
         } catch (Exception e) {
-            System.out.println("Erro ao deletar despesa: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar despesa");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
+
+    // Corpo dos endpoints em lote por id
+    public record Selecao(List<Long> ids) {
+    }
+
+    // Corpo do recategorizar
+    public record Recategorizacao(String descricao, CategoriaDespesa categoria) {
+    }
+
+    // Erro da lista de ids (null se estiver ok)
+    private static String validar(Selecao selecao) {
+        if (selecao.ids() == null || selecao.ids().isEmpty()) {
+            return "Informe os ids das despesas";
+        }
+        if (selecao.ids().size() > LIMITE_MAXIMO) {
+            return "No maximo " + LIMITE_MAXIMO + " ids por vez";
+        }
+        if (selecao.ids().contains(null)) {
+            return "Id invalido";
+        }
+        return null;
+    }
 }
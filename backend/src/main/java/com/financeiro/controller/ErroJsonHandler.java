@@ -0,0 +1,30 @@
+package com.financeiro.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Erros na leitura do corpo JSON, que acontecem antes de entrar no controller
+ * (ex: categoria ou status que nao existe). Responde no mesmo formato dos
+ * controllers: 400 com {"erro": "..."}.
+ */
+@RestControllerAdvice
+public class ErroJsonHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ErroJsonHandler.class);
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> jsonInvalido(HttpMessageNotReadableException e) {
+        // Os enums (CategoriaDespesa, TipoLancamento...) recusam texto desconhecido com IllegalArgumentException
+        Throwable causa = e.getMostSpecificCause();
+        String mensagem = causa instanceof IllegalArgumentException ? causa.getMessage() : "JSON invalido";
+        log.atWarn().addKeyValue("erro", mensagem).log("Erro ao ler o corpo da requisicao");
+        return ResponseEntity.badRequest().body(Map.of("erro", mensagem));
+    }
+}
@@ -1,36 +1,71 @@
 package com.financeiro.controller;
 
 import com.financeiro.model.Investimento;
+import com.financeiro.model.MovimentoInvestimento;
 import com.financeiro.service.InvestimentoService;
+import com.financeiro.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
 
 /**
- * Controller de Investimentos - endpoints REST para gerenciar investimentos.
+ * Controller de Investimentos - endpoints REST para gerenciar investimentos,
+ * o historico de movimentos de cada um e a rentabilidade da carteira.
  * Todas as rotas sao protegidas (precisam de token JWT).
  */
 @RestController
 @RequestMapping("/api/investimentos")
 public class InvestimentoController {
 
+    private static final Logger log = LoggerFactory.getLogger(InvestimentoController.class);
+
     @Autowired
     private InvestimentoService investimentoService;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    // Maior pagina aceita na paginacao por cursor
+    private static final int LIMITE_MAXIMO = 1000;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
     /**
      * GET /api/investimentos
      * Lista todos os investimentos do usuario.
+     *
+     * GET /api/investimentos?after=120&limit=100
+     * Com "limit", retorna so uma pagina: {"itens": [...], "proximo": id}.
+     * Para buscar a pagina seguinte, passe o "proximo" no "after".
      */
     @GetMapping
-    public ResponseEntity<?> listar() {
+    public ResponseEntity<?> listar(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest request) {
         try {
+            if (limit != null && (limit < 1 || limit > LIMITE_MAXIMO)) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Limit deve ser entre 1 e " + LIMITE_MAXIMO));
+            }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            if (limit != null) {
+                List<Investimento> pagina = investimentoService.listarPagina(after != null ? after : 0, limit);
+                return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(Pagina.de(pagina, limit, Investimento::getId));
+            }
             List<Investimento> investimentos = investimentoService.listar();
-            return ResponseEntity.ok(investimentos);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(investimentos);
         } catch (Exception e) {
-            System.out.println("Erro ao listar investimentos: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar investimentos");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -42,14 +77,14 @@ public class InvestimentoController {
     @PostMapping
     public ResponseEntity<?> criar(@RequestBody Investimento investimento) {
         try {
-            if (investimento.getValorInvestido() == null || investimento.getValorInvestido() <= 0) {
+            if (investimento.getValorInvestido() == null || !investimento.getValorInvestido().positivo()) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Valor investido deve ser maior que zero"));
             }
             Investimento salvo = investimentoService.salvar(investimento);
-            System.out.println("Investimento criado: " + salvo.getDescricao() + " - R$ " + salvo.getValorInvestido());
+            log.atDebug().addKeyValue("id", salvo.getId()).log("Investimento criado");
             return ResponseEntity.ok(salvo);
         } catch (Exception e) {
-            System.out.println("Erro ao criar investimento: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao criar investimento");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -64,7 +99,7 @@ public class InvestimentoController {
             Investimento atualizado = investimentoService.atualizar(id, investimento);
             return ResponseEntity.ok(atualizado);
         } catch (Exception e) {
-            System.out.println("Erro ao atualizar investimento: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao atualizar investimento");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -79,7 +114,76 @@ public class InvestimentoController {
             investimentoService.deletar(id);
             return ResponseEntity.ok(Map.of("mensagem", "Investimento deletado com sucesso"));
         } catch (Exception e) {
-            System.out.println("Erro ao deletar investimento: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar investimento");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/investimentos/rentabilidade
+     * Rentabilidade (XIRR e TWR, em % com duas casas) da carteira, por tipo e por investimento:
+     * {"carteira": {...}, "porTipo": [...], "porInvestimento": [...]}
+     */
+    @GetMapping("/rentabilidade")
+    public ResponseEntity<?> rentabilidade(WebRequest request) {
+        try {
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(investimentoService.rentabilidade());
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao calcular rentabilidade");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/investimentos/{id}/movimentos
+     * Lista os aportes, resgates e avaliacoes do investimento, em ordem de data.
+     */
+    @GetMapping("/{id}/movimentos")
+    public ResponseEntity<?> listarMovimentos(@PathVariable Long id, WebRequest request) {
+        try {
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            List<MovimentoInvestimento> movimentos = investimentoService.listarMovimentos(id);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(movimentos);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar movimentos do investimento");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/investimentos/{id}/movimentos
+     * Registra um movimento. Ex: {"tipo": "Aporte", "valor": 500, "data": "2024-03-10"}
+     * ou {"tipo": "Avaliacao", "valor": 10350.20} (valor da posicao inteira na data).
+     */
+    @PostMapping("/{id}/movimentos")
+    public ResponseEntity<?> registrarMovimento(@PathVariable Long id, @RequestBody MovimentoInvestimento movimento) {
+        try {
+            MovimentoInvestimento salvo = investimentoService.registrarMovimento(id, movimento);
+            log.atDebug().addKeyValue("id", salvo.getId()).addKeyValue("investimentoId", id)
+                    .log("Movimento de investimento registrado");
+            return ResponseEntity.ok(salvo);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao registrar movimento do investimento");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * DELETE /api/investimentos/{id}/movimentos/{movimentoId}
+     * Deleta um movimento do investimento.
+     */
+    @DeleteMapping("/{id}/movimentos/{movimentoId}")
+    public ResponseEntity<?> deletarMovimento(@PathVariable Long id, @PathVariable Long movimentoId) {
+        try {
+            investimentoService.deletarMovimento(id, movimentoId);
+            return ResponseEntity.ok(Map.of("mensagem", "Movimento deletado com sucesso"));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar movimento do investimento");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
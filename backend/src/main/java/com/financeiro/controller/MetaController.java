@@ -2,9 +2,14 @@ package com.financeiro.controller;
 
 import com.financeiro.model.Meta;
 import com.financeiro.service.MetaService;
+import com.financeiro.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -17,20 +22,48 @@ import java.util.Map;
 @RequestMapping("/api/metas")
 public class MetaController {
 
+    private static final Logger log = LoggerFactory.getLogger(MetaController.class);
+
     @Autowired
     private MetaService metaService;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    // Maior pagina aceita na paginacao por cursor
+    private static final int LIMITE_MAXIMO = 1000;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
     /**
      * GET /api/metas
      * Lista todas as metas do usuario.
+     *
+     * GET /api/metas?after=120&limit=100
+     * Com "limit", retorna so uma pagina: {"itens": [...], "proximo": id}.
+     * Para buscar a pagina seguinte, passe o "proximo" no "after".
      */
     @GetMapping
-    public ResponseEntity<?> listar() {
+    public ResponseEntity<?> listar(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest request) {
         try {
+            if (limit != null && (limit < 1 || limit > LIMITE_MAXIMO)) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Limit deve ser entre 1 e " + LIMITE_MAXIMO));
+            }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            if (limit != null) {
+                List<Meta> pagina = metaService.listarPagina(after != null ? after : 0, limit);
+                return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(Pagina.de(pagina, limit, Meta::getId));
+            }
             List<Meta> metas = metaService.listar();
-            return ResponseEntity.ok(metas);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(metas);
         } catch (Exception e) {
-            System.out.println("Erro ao listar metas: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar metas");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -42,14 +75,14 @@ public class MetaController {
     @PostMapping
     public ResponseEntity<?> criar(@RequestBody Meta meta) {
         try {
-            if (meta.getValorMeta() == null || meta.getValorMeta() <= 0) {
+            if (meta.getValorMeta() == null || !meta.getValorMeta().positivo()) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Valor da meta deve ser maior que zero"));
             }
             Meta salva = metaService.salvar(meta);
-            System.out.println("Meta criada: " + salva.getDescricao());
+            log.atDebug().addKeyValue("id", salva.getId()).log("Meta criada");
             return ResponseEntity.ok(salva);
         } catch (Exception e) {
-            System.out.println("Erro ao criar meta: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao criar meta");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -64,7 +97,7 @@ public class MetaController {
             Meta atualizada = metaService.atualizar(id, meta);
             return ResponseEntity.ok(atualizada);
         } catch (Exception e) {
-            System.out.println("Erro ao atualizar meta: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao atualizar meta");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -79,7 +112,7 @@ public class MetaController {
             metaService.deletar(id);
             return ResponseEntity.ok(Map.of("mensagem", "Meta deletada com sucesso"));
         } catch (Exception e) {
-            System.out.println("Erro ao deletar meta: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar meta");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
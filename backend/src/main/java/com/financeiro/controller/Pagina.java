@@ -0,0 +1,18 @@
+package com.financeiro.controller;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Resposta das listagens paginadas por cursor: {"itens": [...], "proximo": id}.
+ * "proximo" eh o id para passar no "after" da pagina seguinte, ou null quando
+ * a pagina veio incompleta (nao ha mais nada depois dela).
+ */
+public record Pagina<T>(List<T> itens, Long proximo) {
+
+    // Monta a pagina a partir dos itens buscados com "limit" (em ordem de id)
+    public static <T> Pagina<T> de(List<T> itens, int limit, Function<T, Long> id) {
+        Long proximo = itens.size() == limit ? id.apply(itens.get(itens.size() - 1)) : null;
+        return new Pagina<>(itens, proximo);
+    }
+}
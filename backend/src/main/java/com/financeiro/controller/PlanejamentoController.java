@@ -0,0 +1,48 @@
+package com.financeiro.controller;
+
+import com.financeiro.service.PlanejamentoService;
+import com.financeiro.service.SobrecargaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller do Planejamento - projecoes de metas e da carteira de investimentos.
+ * Todas as rotas sao protegidas (precisam de token JWT).
+ */
+@RestController
+@RequestMapping("/api/planejamento")
+public class PlanejamentoController {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanejamentoController.class);
+
+    @Autowired
+    private PlanejamentoService planejamentoService;
+
+    /**
+     * POST /api/planejamento/simulacao
+     * Projeta o saldo mes a mes (deterministico e Monte Carlo com bandas de percentis).
+     * Ex: {"metaId": 1, "meses": 120, "caminhos": 100000, "semente": 42}
+     */
+    @PostMapping("/simulacao")
+    public ResponseEntity<?> simular(@RequestBody PlanejamentoService.Simulacao simulacao) {
+        try {
+            return ResponseEntity.ok(planejamentoService.simular(simulacao));
+        } catch (SobrecargaException e) {
+            // Simulacoes demais ao mesmo tempo: 429 para o cliente tentar de novo em seguida
+            log.atDebug().addKeyValue("erro", e.getMessage()).log("Simulacao recusada por sobrecarga");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("erro", e.getMessage()));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao simular");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+}
@@ -2,10 +2,21 @@ package com.financeiro.controller;
 
 import com.financeiro.model.Receita;
 import com.financeiro.service.ReceitaService;
+import com.financeiro.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -17,27 +28,89 @@ import java.util.Map;
 @RequestMapping("/api/receitas")
 public class ReceitaController {
 
+    private static final Logger log = LoggerFactory.getLogger(ReceitaController.class);
+
     @Autowired
     private ReceitaService receitaService;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Maior pagina aceita na paginacao por cursor
+    private static final int LIMITE_MAXIMO = 1000;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
     /**
      * GET /api/receitas?mes=1&ano=2026
      * Lista receitas do mes/ano informado.
+     *
+     * GET /api/receitas?mes=1&ano=2026&after=120&limit=100
+     * Com "limit", retorna so uma pagina: {"itens": [...], "proximo": id}.
+     * Para buscar a pagina seguinte, passe o "proximo" no "after".
      */
     @GetMapping
-    public ResponseEntity<?> listar(@RequestParam int mes, @RequestParam int ano) {
+    public ResponseEntity<?> listar(@RequestParam int mes, @RequestParam int ano,
+                                    @RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest request) {
         try {
             if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
             }
+            if (limit != null && (limit < 1 || limit > LIMITE_MAXIMO)) {
+                return ResponseEntity.badRequest().body(Map.of("erro", "Limit deve ser entre 1 e " + LIMITE_MAXIMO));
+            }
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            if (limit != null) {
+                List<Receita> pagina = receitaService.listarPagina(mes, ano, after != null ? after : 0, limit);
+                return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(Pagina.de(pagina, limit, Receita::getId));
+            }
             List<Receita> receitas = receitaService.listar(mes, ano);
-            return ResponseEntity.ok(receitas);
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(receitas);
         } catch (Exception e) {
-            System.out.println("Erro ao listar receitas: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar receitas");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
 
+    /**
+     * GET /api/receitas/exportar?mes=1&ano=2026
+     * Envia as receitas do mes em NDJSON (um JSON por linha), lendo do banco aos
+     * poucos. Serve para historicos grandes sem montar a lista inteira em memoria.
+     */
+    @GetMapping("/exportar")
+    public void exportar(@RequestParam int mes, @RequestParam int ano,
+                         HttpServletResponse response) throws IOException {
+        if (mes < 1 || mes > 12 || ano < 1900 || ano > 2100) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("erro", "Mes deve ser entre 1-12 e ano entre 1900-2100"));
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream saida = response.getOutputStream();
+        receitaService.exportar(mes, ano, receita -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(receita));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        saida.flush();
+    }
+
     /**
      * POST /api/receitas
      * Cria uma nova receita.
@@ -45,14 +118,49 @@ public class ReceitaController {
     @PostMapping
     public ResponseEntity<?> criar(@RequestBody Receita receita) {
         try {
-            if (receita.getValor() == null || receita.getValor() <= 0) {
+            if (receita.getValor() == null || !receita.getValor().positivo()) {
                 return ResponseEntity.badRequest().body(Map.of("erro", "Valor deve ser maior que zero"));
             }
             Receita salva = receitaService.salvar(receita);
-            System.out.println("Receita criada: " + salva.getFonte() + " - R$ " + salva.getValor());
+            log.atDebug().addKeyValue("id", salva.getId()).log("Receita criada");
             return ResponseEntity.ok(salva);
         } catch (Exception e) {
-            System.out.println("Erro ao criar receita: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao criar receita");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/receitas/lote
+     * Importa varias receitas de uma vez (lista JSON).
+     * Retorna quantas foram inseridas e o erro de cada linha recusada.
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importar(@RequestBody List<Receita> receitas) {
+        try {
+            Map<String, Object> resultado = receitaService.importar(receitas);
+            log.atInfo().addKeyValue("inseridas", resultado.get("inseridas"))
+                    .addKeyValue("recusadas", resultado.get("recusadas")).log("Importacao de receitas");
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao importar receitas");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/receitas/lote (Content-Type: text/csv)
+     * Importa receitas de um CSV com cabecalho (separador "," ou ";").
+     */
+    @PostMapping(value = "/lote", consumes = "text/csv")
+    public ResponseEntity<?> importarCsv(@RequestBody String csv) {
+        try {
+            Map<String, Object> resultado = receitaService.importarCsv(csv);
+            log.atInfo().addKeyValue("inseridas", resultado.get("inseridas"))
+                    .addKeyValue("recusadas", resultado.get("recusadas")).log("Importacao de receitas (CSV)");
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao importar receitas");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -67,7 +175,7 @@ public class ReceitaController {
             Receita atualizada = receitaService.atualizar(id, receita);
             return ResponseEntity.ok(atualizada);
         } catch (Exception e) {
-            System.out.println("Erro ao atualizar receita: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao atualizar receita");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
@@ -82,7 +190,7 @@ public class ReceitaController {
             receitaService.deletar(id);
             return ResponseEntity.ok(Map.of("mensagem", "Receita deletada com sucesso"));
         } catch (Exception e) {
-            System.out.println("Erro ao deletar receita: " + e.getMessage());
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar receita");
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
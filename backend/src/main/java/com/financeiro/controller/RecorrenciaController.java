@@ -0,0 +1,102 @@
+package com.financeiro.controller;
+
+import com.financeiro.model.Recorrencia;
+import com.financeiro.service.RecorrenciaService;
+import com.financeiro.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller de Recorrencias - endpoints REST para as despesas e receitas fixas
+ * que se repetem todo mes (os lancamentos sao gerados por um job).
+ * Todas as rotas sao protegidas (precisam de token JWT).
+ */
+@RestController
+@RequestMapping("/api/recorrencias")
+public class RecorrenciaController {
+
+    private static final Logger log = LoggerFactory.getLogger(RecorrenciaController.class);
+
+    @Autowired
+    private RecorrenciaService recorrenciaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    // Respostas com ETag: o navegador guarda, mas sempre revalida antes de usar
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePrivate();
+
+    /**
+     * GET /api/recorrencias
+     * Lista todas as recorrencias do usuario.
+     */
+    @GetMapping
+    public ResponseEntity<?> listar(WebRequest request) {
+        try {
+            // Se os dados do usuario nao mudaram desde o ultimo ETag, responde 304 sem consultar nada
+            if (request.checkNotModified(usuarioService.getEtagDados())) {
+                return null;
+            }
+            List<Recorrencia> recorrencias = recorrenciaService.listar();
+            return ResponseEntity.ok().cacheControl(CACHE_REVALIDAR).body(recorrencias);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao listar recorrencias");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/recorrencias
+     * Cria uma recorrencia. Ex: {"lancamento": "DESPESA", "descricao": "Aluguel",
+     * "categoria": "Moradia", "valor": 1500, "diaDoMes": 5}
+     */
+    @PostMapping
+    public ResponseEntity<?> criar(@RequestBody Recorrencia recorrencia) {
+        try {
+            Recorrencia salva = recorrenciaService.salvar(recorrencia);
+            log.atDebug().addKeyValue("id", salva.getId()).log("Recorrencia criada");
+            return ResponseEntity.ok(salva);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao criar recorrencia");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * PUT /api/recorrencias/{id}
+     * Atualiza uma recorrencia (vale para os meses que ainda nao foram gerados).
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> atualizar(@PathVariable Long id, @RequestBody Recorrencia recorrencia) {
+        try {
+            Recorrencia atualizada = recorrenciaService.atualizar(id, recorrencia);
+            return ResponseEntity.ok(atualizada);
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao atualizar recorrencia");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * DELETE /api/recorrencias/{id}
+     * Deleta uma recorrencia (os lancamentos ja gerados continuam).
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deletar(@PathVariable Long id) {
+        try {
+            recorrenciaService.deletar(id);
+            return ResponseEntity.ok(Map.of("mensagem", "Recorrencia deletada com sucesso"));
+        } catch (Exception e) {
+            log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao deletar recorrencia");
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Categoria da despesa.
+ * O codigo eh gravado no banco: nao mude a ordem, so acrescente no fim.
+ */
+public enum CategoriaDespesa implements Opcao {
+
+    MORADIA(1, "Moradia"),
+    ALIMENTACAO(2, "Alimentação"),
+    TRANSPORTE(3, "Transporte"),
+    SAUDE(4, "Saúde"),
+    EDUCACAO(5, "Educação"),
+    LAZER(6, "Lazer"),
+    VESTUARIO(7, "Vestuário"),
+    INVESTIMENTOS(8, "Investimentos", "Investimento"),
+    OUTROS(9, "Outros", "Outro");
+
+    private static final CategoriaDespesa[] VALORES = values();
+    private static final Map<String, CategoriaDespesa> POR_TEXTO = Opcao.indexar(VALORES);
+
+    private final short codigo;
+    private final String rotulo;
+    private final String[] apelidos;
+
+    CategoriaDespesa(int codigo, String rotulo, String... apelidos) {
+        this.codigo = (short) codigo;
+        this.rotulo = rotulo;
+        this.apelidos = apelidos;
+    }
+
+    @Override
+    public short getCodigo() {
+        return codigo;
+    }
+
+    @JsonValue
+    @Override
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    @Override
+    public String[] getApelidos() {
+        return apelidos;
+    }
+
+    // Le o texto da API ou do CSV (aceita grafias antigas, ver Opcao)
+    @JsonCreator
+    public static CategoriaDespesa deTexto(String texto) {
+        return Opcao.ler(POR_TEXTO, texto, "Categoria invalida");
+    }
+
+    public static CategoriaDespesa deCodigo(Short codigo) {
+        return Opcao.deCodigo(VALORES, codigo);
+    }
+
+    public static int quantidade() {
+        return VALORES.length;
+    }
+
+    public static class Conversor extends ConversorOpcao<CategoriaDespesa> {
+        public Conversor() {
+            super(VALORES);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.financeiro.model;
+
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Grava uma Opcao no banco pelo codigo (SMALLINT).
+ * Cada enum tem uma subclasse (ex: CategoriaDespesa.Conversor) usada no @Convert da entidade.
+ */
+public abstract class ConversorOpcao<E extends Enum<E> & Opcao> implements AttributeConverter<E, Short> {
+
+    private final E[] valores;
+
+    protected ConversorOpcao(E[] valores) {
+        this.valores = valores;
+    }
+
+    @Override
+    public Short convertToDatabaseColumn(E opcao) {
+        return opcao != null ? opcao.getCodigo() : null;
+    }
+
+    @Override
+    public E convertToEntityAttribute(Short codigo) {
+        return Opcao.deCodigo(valores, codigo);
+    }
+}
@@ -19,29 +19,32 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Despesa {
 
+    // Id gerado por sequence (reservando 50 ids por vez) para o Hibernate
+    // conseguir agrupar os INSERTs em lote; com IDENTITY ele insere um por um
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "despesas_seq")
+    @SequenceGenerator(name = "despesas_seq", sequenceName = "despesas_id_seq", allocationSize = 50)
     private Long id;
 
     private LocalDate data;
 
     private String descricao;
 
-    // Categorias: "Moradia", "Alimentacao", "Transporte", "Saude",
-    // "Educacao", "Lazer", "Vestuario", "Investimentos", "Outros"
-    private String categoria;
+    // Categoria, tipo, forma de pagamento e status ficam no banco como SMALLINT
+    // (o codigo de cada enum) e no JSON com o texto da tela ("Alimentação", "Variável"...)
+    @Convert(converter = CategoriaDespesa.Conversor.class)
+    private CategoriaDespesa categoria;
 
-    // Tipo: "Fixa" ou "Variavel"
-    private String tipo;
+    @Convert(converter = TipoLancamento.Conversor.class)
+    private TipoLancamento tipo;
 
-    // Forma de pagamento: "Dinheiro", "PIX", "Cartao Credito",
-    // "Cartao Debito", "Transferencia", "Boleto"
-    private String formaPagamento;
+    @Convert(converter = FormaPagamento.Conversor.class)
+    private FormaPagamento formaPagamento;
 
-    private Double valor;
+    private Dinheiro valor;
 
-    // Status: "Pago" ou "Pendente"
-    private String status;
+    @Convert(converter = StatusDespesa.Conversor.class)
+    private StatusDespesa status;
 
     // ID do usuario dono dessa despesa
     private Long usuarioId;
@@ -0,0 +1,58 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor em dinheiro guardado como centavos (long).
+ * Somas e comparacoes sao exatas, sem o erro de arredondamento do double.
+ * No banco vira BIGINT em centavos (DinheiroConverter) e no JSON continua
+ * um numero em reais com duas casas (ex: 1234.56).
+ */
+public record Dinheiro(long centavos) implements Comparable<Dinheiro> {
+
+    public static final Dinheiro ZERO = new Dinheiro(0);
+
+    public static Dinheiro deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+
+    /**
+     * Converte um valor em reais (ex: do JSON ou do CSV), arredondando para o centavo mais proximo.
+     * Valor vazio (null) continua null.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Dinheiro deReais(BigDecimal reais) {
+        if (reais == null) {
+            return null;
+        }
+        return deCentavos(reais.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // Valor em reais, com duas casas (usado no JSON)
+    @JsonValue
+    public BigDecimal emReais() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public boolean positivo() {
+        return centavos > 0;
+    }
+
+    public Dinheiro somar(Dinheiro outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return emReais().toPlainString();
+    }
+}
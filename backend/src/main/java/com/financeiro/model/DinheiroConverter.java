@@ -0,0 +1,22 @@
+package com.financeiro.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Grava os campos Dinheiro das entidades como BIGINT (centavos).
+ * Vale para todos os campos desse tipo (autoApply).
+ */
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Dinheiro valor) {
+        return valor != null ? valor.centavos() : null;
+    }
+
+    @Override
+    public Dinheiro convertToEntityAttribute(Long centavos) {
+        return centavos != null ? Dinheiro.deCentavos(centavos) : null;
+    }
+}
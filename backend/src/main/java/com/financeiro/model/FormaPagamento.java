@@ -0,0 +1,69 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Forma de pagamento da despesa.
+ * O codigo eh gravado no banco: nao mude a ordem, so acrescente no fim.
+ */
+public enum FormaPagamento implements Opcao {
+
+    DINHEIRO(1, "Dinheiro"),
+    PIX(2, "PIX"),
+    CARTAO_CREDITO(3, "Cartão Crédito", "Credito", "Cartao de Credito"),
+    CARTAO_DEBITO(4, "Cartão Débito", "Debito", "Cartao de Debito"),
+    TRANSFERENCIA(5, "Transferência", "TED", "DOC"),
+    BOLETO(6, "Boleto");
+
+    private static final FormaPagamento[] VALORES = values();
+    private static final Map<String, FormaPagamento> POR_TEXTO = Opcao.indexar(VALORES);
+
+    private final short codigo;
+    private final String rotulo;
+    private final String[] apelidos;
+
+    FormaPagamento(int codigo, String rotulo, String... apelidos) {
+        this.codigo = (short) codigo;
+        this.rotulo = rotulo;
+        this.apelidos = apelidos;
+    }
+
+    @Override
+    public short getCodigo() {
+        return codigo;
+    }
+
+    @JsonValue
+    @Override
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    @Override
+    public String[] getApelidos() {
+        return apelidos;
+    }
+
+    // Le o texto da API ou do CSV (aceita grafias antigas, ver Opcao)
+    @JsonCreator
+    public static FormaPagamento deTexto(String texto) {
+        return Opcao.ler(POR_TEXTO, texto, "Forma de pagamento invalida");
+    }
+
+    public static FormaPagamento deCodigo(Short codigo) {
+        return Opcao.deCodigo(VALORES, codigo);
+    }
+
+    public static int quantidade() {
+        return VALORES.length;
+    }
+
+    public static class Conversor extends ConversorOpcao<FormaPagamento> {
+        public Conversor() {
+            super(VALORES);
+        }
+    }
+}
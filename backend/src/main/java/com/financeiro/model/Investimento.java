@@ -30,7 +30,7 @@ public class Investimento {
 
     private LocalDate dataAporte;
 
-    private Double valorInvestido;
+    private Dinheiro valorInvestido;
 
     // Rentabilidade estimada em percentual (ex: 12.5 = 12.5%)
     private Double rentabilidadeEstimada;
@@ -25,13 +25,13 @@ public class Meta {
     private String descricao;
 
     // Quanto quer juntar no total
-    private Double valorMeta;
+    private Dinheiro valorMeta;
 
     // Quanto ja tem guardado
-    private Double valorAtual;
+    private Dinheiro valorAtual;
 
     // Quanto pretende guardar por mes
-    private Double aporteMensal;
+    private Dinheiro aporteMensal;
 
     // ID do usuario dono dessa meta
     private Long usuarioId;
@@ -0,0 +1,41 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entidade MovimentoInvestimento - um aporte, resgate ou avaliacao de um investimento.
+ * Na avaliacao, o valor eh quanto a posicao inteira valia na data (ja com os
+ * movimentos do dia). A rentabilidade do investimento sai desse historico.
+ */
+@Entity
+@Table(name = "movimentos_investimento")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimentoInvestimento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Investimento do movimento (vem da URL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long investimentoId;
+
+    private LocalDate data;
+
+    // "Aporte", "Resgate" ou "Avaliação"
+    @Convert(converter = TipoMovimento.Conversor.class)
+    private TipoMovimento tipo;
+
+    private Dinheiro valor;
+
+    // ID do usuario dono desse movimento
+    private Long usuarioId;
+}
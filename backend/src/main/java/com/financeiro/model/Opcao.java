@@ -0,0 +1,79 @@
+package com.financeiro.model;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opcao fixa de um campo (categoria, tipo, forma de pagamento, status).
+ * No banco vira um SMALLINT (codigo) e no JSON o texto mostrado na tela (rotulo).
+ *
+ * A leitura do texto eh tolerante: ignora acentos, maiusculas, espacos e aceita
+ * o nome da constante e grafias antigas (ex: "Variavel", "Variável", "VARIAVEL").
+ */
+public interface Opcao {
+
+    // Codigo gravado no banco (1, 2, 3...; 0 fica para "sem valor" no resumo mensal)
+    short getCodigo();
+
+    // Texto usado na API e no frontend
+    String getRotulo();
+
+    // Outras grafias aceitas na leitura
+    String[] getApelidos();
+
+    /**
+     * Monta o indice texto normalizado -> opcao (rotulo, nome da constante e apelidos).
+     */
+    static <E extends Enum<E> & Opcao> Map<String, E> indexar(E[] valores) {
+        Map<String, E> indice = new HashMap<>();
+        for (E valor : valores) {
+            indice.put(normalizar(valor.getRotulo()), valor);
+            indice.put(normalizar(valor.name()), valor);
+            for (String apelido : valor.getApelidos()) {
+                indice.put(normalizar(apelido), valor);
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Le a opcao a partir do texto (null ou vazio vira null).
+     * Texto que nao corresponde a nenhuma opcao gera erro ("mensagem: texto").
+     */
+    static <E extends Enum<E> & Opcao> E ler(Map<String, E> indice, String texto, String mensagem) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        E valor = indice.get(normalizar(texto));
+        if (valor == null) {
+            throw new IllegalArgumentException(mensagem + ": " + texto);
+        }
+        return valor;
+    }
+
+    /**
+     * Opcao pelo codigo do banco (os codigos seguem a ordem das constantes, a partir de 1).
+     * Codigo 0 (ou null) vira null.
+     */
+    static <E extends Enum<E> & Opcao> E deCodigo(E[] valores, Short codigo) {
+        if (codigo == null || codigo == 0) {
+            return null;
+        }
+        if (codigo < 1 || codigo > valores.length) {
+            throw new IllegalArgumentException("Codigo desconhecido: " + codigo);
+        }
+        return valores[codigo - 1];
+    }
+
+    // Codigo da opcao, 0 quando nao tem valor
+    static short codigo(Opcao opcao) {
+        return opcao != null ? opcao.getCodigo() : 0;
+    }
+
+    // Sem acentos, minusculo e so letras e numeros ("Cartão Crédito" -> "cartaocredito")
+    static String normalizar(String texto) {
+        String semAcento = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase().replaceAll("[^a-z0-9]", "");
+    }
+}
@@ -19,8 +19,11 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Receita {
 
+    // Id gerado por sequence (reservando 50 ids por vez) para o Hibernate
+    // conseguir agrupar os INSERTs em lote; com IDENTITY ele insere um por um
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receitas_seq")
+    @SequenceGenerator(name = "receitas_seq", sequenceName = "receitas_id_seq", allocationSize = 50)
     private Long id;
 
     private LocalDate data;
@@ -28,10 +31,11 @@ public class Receita {
     // Fonte da receita: "Salario", "Freelance", "Bonus", etc.
     private String fonte;
 
-    // Tipo: "Fixa" ou "Variavel"
-    private String tipo;
+    // Tipo: fixa ou variavel (SMALLINT no banco)
+    @Convert(converter = TipoLancamento.Conversor.class)
+    private TipoLancamento tipo;
 
-    private Double valor;
+    private Dinheiro valor;
 
     private String observacoes;
 
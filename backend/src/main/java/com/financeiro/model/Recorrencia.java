@@ -0,0 +1,79 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Entidade Recorrencia - uma despesa ou receita fixa que se repete todo mes.
+ * Exemplo: "Aluguel" de R$ 1.500 todo dia 5, ou "Salario" todo dia 30.
+ * O job do RecorrenciaService gera os lancamentos de cada mes a partir dela.
+ */
+@Entity
+@Table(name = "recorrencias")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recorrencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "DESPESA" ou "RECEITA"
+    private String lancamento;
+
+    // Descricao da despesa ou fonte da receita
+    private String descricao;
+
+    // Categoria e forma de pagamento das despesas geradas (receitas nao usam)
+    @Convert(converter = CategoriaDespesa.Conversor.class)
+    private CategoriaDespesa categoria;
+
+    @Convert(converter = FormaPagamento.Conversor.class)
+    private FormaPagamento formaPagamento;
+
+    private Dinheiro valor;
+
+    // Dia do mes do lancamento (31 vira o ultimo dia nos meses mais curtos)
+    private Integer diaDoMes;
+
+    // Periodo em que a regra vale (fim vazio = sem data para acabar)
+    private LocalDate inicio;
+
+    private LocalDate fim;
+
+    // So no PUT: true apaga o fim (fim vazio no PUT mantem o que estava)
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Boolean semFim;
+
+    // Primeiro dia do ultimo mes ja gerado (so o job altera)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate ultimoMesGerado;
+
+    // ID do usuario dono dessa recorrencia
+    private Long usuarioId;
+
+    /**
+     * Data do lancamento no mes, ou null se a regra nao vale nesse mes
+     * (o dia cai antes do inicio ou depois do fim).
+     */
+    public LocalDate ocorrencia(YearMonth mes) {
+        LocalDate data = mes.atDay(Math.min(diaDoMes, mes.lengthOfMonth()));
+        if (data.isBefore(inicio) || (fim != null && data.isAfter(fim))) {
+            return null;
+        }
+        return data;
+    }
+
+    // Se o job ainda nao gerou o lancamento do mes
+    public boolean pendente(YearMonth mes) {
+        return ultimoMesGerado == null || YearMonth.from(ultimoMesGerado).isBefore(mes);
+    }
+}
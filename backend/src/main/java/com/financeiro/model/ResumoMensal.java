@@ -0,0 +1,47 @@
+package com.financeiro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidade ResumoMensal - totais pre-calculados de um mes do usuario.
+ * Cada linha soma os lancamentos de um mesmo grupo (categoria, tipo e status).
+ * Eh mantida pelos services de Despesa e Receita a cada escrita,
+ * assim o dashboard le poucas linhas em vez de somar o mes inteiro.
+ */
+@Entity
+@Table(name = "resumo_mensal")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long usuarioId;
+
+    private Integer ano;
+
+    private Integer mes;
+
+    // Lancamento: "DESPESA" ou "RECEITA"
+    private String lancamento;
+
+    // Campos do grupo: codigo do enum (CategoriaDespesa, TipoLancamento, StatusDespesa),
+    // 0 quando o lancamento nao tem o campo preenchido
+    private Short categoria;
+
+    private Short tipo;
+
+    private Short status;
+
+    // Soma dos valores do grupo, em centavos
+    private Long total;
+
+    // Quantidade de lancamentos no grupo
+    private Long quantidade;
+}
@@ -0,0 +1,65 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Status da despesa: paga ou pendente.
+ * O codigo eh gravado no banco: nao mude a ordem, so acrescente no fim.
+ */
+public enum StatusDespesa implements Opcao {
+
+    PAGO(1, "Pago", "Paga"),
+    PENDENTE(2, "Pendente");
+
+    private static final StatusDespesa[] VALORES = values();
+    private static final Map<String, StatusDespesa> POR_TEXTO = Opcao.indexar(VALORES);
+
+    private final short codigo;
+    private final String rotulo;
+    private final String[] apelidos;
+
+    StatusDespesa(int codigo, String rotulo, String... apelidos) {
+        this.codigo = (short) codigo;
+        this.rotulo = rotulo;
+        this.apelidos = apelidos;
+    }
+
+    @Override
+    public short getCodigo() {
+        return codigo;
+    }
+
+    @JsonValue
+    @Override
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    @Override
+    public String[] getApelidos() {
+        return apelidos;
+    }
+
+    // Le o texto da API ou do CSV (aceita grafias antigas, ver Opcao)
+    @JsonCreator
+    public static StatusDespesa deTexto(String texto) {
+        return Opcao.ler(POR_TEXTO, texto, "Status invalido");
+    }
+
+    public static StatusDespesa deCodigo(Short codigo) {
+        return Opcao.deCodigo(VALORES, codigo);
+    }
+
+    public static int quantidade() {
+        return VALORES.length;
+    }
+
+    public static class Conversor extends ConversorOpcao<StatusDespesa> {
+        public Conversor() {
+            super(VALORES);
+        }
+    }
+}
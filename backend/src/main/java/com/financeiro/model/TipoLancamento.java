@@ -0,0 +1,65 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Tipo da despesa ou receita: fixa (todo mes) ou variavel.
+ * O codigo eh gravado no banco: nao mude a ordem, so acrescente no fim.
+ */
+public enum TipoLancamento implements Opcao {
+
+    FIXA(1, "Fixa", "Fixo"),
+    VARIAVEL(2, "Variável", "Variavel");
+
+    private static final TipoLancamento[] VALORES = values();
+    private static final Map<String, TipoLancamento> POR_TEXTO = Opcao.indexar(VALORES);
+
+    private final short codigo;
+    private final String rotulo;
+    private final String[] apelidos;
+
+    TipoLancamento(int codigo, String rotulo, String... apelidos) {
+        this.codigo = (short) codigo;
+        this.rotulo = rotulo;
+        this.apelidos = apelidos;
+    }
+
+    @Override
+    public short getCodigo() {
+        return codigo;
+    }
+
+    @JsonValue
+    @Override
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    @Override
+    public String[] getApelidos() {
+        return apelidos;
+    }
+
+    // Le o texto da API ou do CSV (aceita grafias antigas, ver Opcao)
+    @JsonCreator
+    public static TipoLancamento deTexto(String texto) {
+        return Opcao.ler(POR_TEXTO, texto, "Tipo invalido");
+    }
+
+    public static TipoLancamento deCodigo(Short codigo) {
+        return Opcao.deCodigo(VALORES, codigo);
+    }
+
+    public static int quantidade() {
+        return VALORES.length;
+    }
+
+    public static class Conversor extends ConversorOpcao<TipoLancamento> {
+        public Conversor() {
+            super(VALORES);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.financeiro.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Tipo do movimento de um investimento: dinheiro que entra (aporte), que sai (resgate)
+ * ou o valor da posicao numa data (avaliacao).
+ * O codigo eh gravado no banco: nao mude a ordem, so acrescente no fim.
+ */
+public enum TipoMovimento implements Opcao {
+
+    APORTE(1, "Aporte", "Compra"),
+    RESGATE(2, "Resgate", "Retirada", "Venda"),
+    AVALIACAO(3, "Avaliação", "Avaliacao", "Saldo");
+
+    private static final TipoMovimento[] VALORES = values();
+    private static final Map<String, TipoMovimento> POR_TEXTO = Opcao.indexar(VALORES);
+
+    private final short codigo;
+    private final String rotulo;
+    private final String[] apelidos;
+
+    TipoMovimento(int codigo, String rotulo, String... apelidos) {
+        this.codigo = (short) codigo;
+        this.rotulo = rotulo;
+        this.apelidos = apelidos;
+    }
+
+    @Override
+    public short getCodigo() {
+        return codigo;
+    }
+
+    @JsonValue
+    @Override
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    @Override
+    public String[] getApelidos() {
+        return apelidos;
+    }
+
+    // Le o texto da API (aceita grafias sem acento, ver Opcao)
+    @JsonCreator
+    public static TipoMovimento deTexto(String texto) {
+        return Opcao.ler(POR_TEXTO, texto, "Tipo de movimento invalido");
+    }
+
+    public static TipoMovimento deCodigo(Short codigo) {
+        return Opcao.deCodigo(VALORES, codigo);
+    }
+
+    public static class Conversor extends ConversorOpcao<TipoMovimento> {
+        public Conversor() {
+            super(VALORES);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.financeiro.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -27,4 +28,10 @@ public class Usuario {
     private String email;
 
     private String senha;
+
+    // Versao dos dados do usuario (muda a cada escrita), usada no ETag.
+    // Eh alterada so por UPDATE direto no banco, nunca pelo JSON.
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long versaoDados;
 }
@@ -1,10 +1,24 @@
 package com.financeiro.repository;
 
+import com.financeiro.model.CategoriaDespesa;
 import com.financeiro.model.Despesa;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.FormaPagamento;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository de Despesa - acessa a tabela de despesas no banco.
@@ -17,4 +31,139 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
 
     // Busca despesas de um usuario em um periodo (usado para filtrar por mes)
     List<Despesa> findByUsuarioIdAndDataBetween(Long usuarioId, LocalDate inicio, LocalDate fim);
+
+    // Pagina de despesas do periodo (keyset): as proximas "limit" com id maior que o cursor
+    List<Despesa> findByUsuarioIdAndDataBetweenAndIdGreaterThanOrderByIdAsc(Long usuarioId,
+                                                                            LocalDate inicio,
+                                                                            LocalDate fim,
+                                                                            Long id,
+                                                                            Limit limit);
+
+    /**
+     * Despesas do periodo como Stream, lidas do banco aos poucos (fetch size).
+     * Precisa ser usado dentro de uma transacao e fechado no final.
+     */
+    @Query("SELECT d FROM Despesa d WHERE d.usuarioId = :usuarioId AND d.data BETWEEN :inicio AND :fim " +
+           "ORDER BY d.data, d.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Despesa> streamPorPeriodo(@Param("usuarioId") Long usuarioId,
+                                     @Param("inicio") LocalDate inicio,
+                                     @Param("fim") LocalDate fim);
+
+    // Colunas devolvidas pelos UPDATEs abaixo (DespesaAlterada): a linha como ficou ("d")
+    // e os campos de antes que entram no resumo mensal (subconsulta "anterior")
+    String RETORNO_ALTERADA = "RETURNING d.id, d.data, d.descricao, d.categoria, d.tipo, " +
+            "d.forma_pagamento AS formaPagamento, d.valor, d.status, d.usuario_id AS usuarioId, " +
+            "anterior.data AS dataAnterior, anterior.categoria AS categoriaAnterior, " +
+            "anterior.tipo AS tipoAnterior, anterior.status AS statusAnterior, anterior.valor AS valorAnterior";
+
+    /**
+     * Atualiza a despesa do usuario em um unico comando: so os campos preenchidos em "d" mudam.
+     * Devolve a despesa como ficou e os valores de antes (para tirar do resumo mensal);
+     * vazio quando o id nao existe ou a despesa eh de outro usuario.
+     */
+    @Query(value = "UPDATE despesas d SET " +
+                   "data = COALESCE(CAST(:#{#d.data} AS DATE), d.data), " +
+                   "descricao = COALESCE(CAST(:#{#d.descricao} AS VARCHAR), d.descricao), " +
+                   "categoria = COALESCE(CAST(:#{#d.categoria?.codigo} AS SMALLINT), d.categoria), " +
+                   "tipo = COALESCE(CAST(:#{#d.tipo?.codigo} AS SMALLINT), d.tipo), " +
+                   "forma_pagamento = COALESCE(CAST(:#{#d.formaPagamento?.codigo} AS SMALLINT), d.forma_pagamento), " +
+                   "valor = COALESCE(CAST(:#{#d.valor?.centavos()} AS BIGINT), d.valor), " +
+                   "status = COALESCE(CAST(:#{#d.status?.codigo} AS SMALLINT), d.status) " +
+                   // A linha de antes, travada ate o fim da transacao
+                   "FROM (SELECT id, data, categoria, tipo, status, valor FROM despesas " +
+                   "WHERE id = :id AND usuario_id = :usuarioId FOR UPDATE) anterior " +
+                   "WHERE d.id = anterior.id " +
+                   RETORNO_ALTERADA,
+           nativeQuery = true)
+    Optional<DespesaAlterada> atualizarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId,
+                                                 @Param("d") Despesa d);
+
+    /**
+     * Apaga a despesa do usuario em um unico comando e devolve a linha apagada;
+     * vazio quando o id nao existe ou a despesa eh de outro usuario.
+     */
+    @Query(value = "DELETE FROM despesas WHERE id = :id AND usuario_id = :usuarioId RETURNING *",
+           nativeQuery = true)
+    Optional<Despesa> deletarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Alteracoes em lote (um unico comando para todas as linhas) ---
+
+    /**
+     * Muda o status das despesas do usuario com esses ids (as que ja tem esse status ficam como estao).
+     * Devolve as linhas alteradas com os valores de antes, para o resumo mensal.
+     */
+    @Query(value = "UPDATE despesas d SET status = :status " +
+                   "FROM (SELECT id, data, categoria, tipo, status, valor FROM despesas " +
+                   "WHERE usuario_id = :usuarioId AND id IN (:ids) AND status IS DISTINCT FROM :status " +
+                   "FOR UPDATE) anterior " +
+                   "WHERE d.id = anterior.id " +
+                   RETORNO_ALTERADA,
+           nativeQuery = true)
+    List<DespesaAlterada> alterarStatusDoUsuario(@Param("usuarioId") Long usuarioId,
+                                                 @Param("ids") Collection<Long> ids,
+                                                 @Param("status") short status);
+
+    /**
+     * Muda a categoria das despesas do usuario com a descricao no padrao do LIKE (sem diferenciar
+     * maiusculas). Devolve as linhas alteradas com os valores de antes, para o resumo mensal.
+     */
+    @Query(value = "UPDATE despesas d SET categoria = :categoria " +
+                   "FROM (SELECT id, data, categoria, tipo, status, valor FROM despesas " +
+                   "WHERE usuario_id = :usuarioId AND descricao ILIKE :padrao " +
+                   "AND categoria IS DISTINCT FROM :categoria FOR UPDATE) anterior " +
+                   "WHERE d.id = anterior.id " +
+                   RETORNO_ALTERADA,
+           nativeQuery = true)
+    List<DespesaAlterada> recategorizarDoUsuario(@Param("usuarioId") Long usuarioId,
+                                                 @Param("padrao") String padrao,
+                                                 @Param("categoria") short categoria);
+
+    // Apaga as despesas do usuario com esses ids e devolve as linhas apagadas (ids de outros usuarios sao ignorados)
+    @Query(value = "DELETE FROM despesas WHERE usuario_id = :usuarioId AND id IN (:ids) RETURNING *",
+           nativeQuery = true)
+    List<Despesa> deletarVariasDoUsuario(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
+
+    // Linha devolvida pelo atualizarDoUsuario, alterarStatusDoUsuario e recategorizarDoUsuario
+    // (codigos dos enums e valores em centavos)
+    interface DespesaAlterada {
+        Long getId();
+        LocalDate getData();
+        String getDescricao();
+        Short getCategoria();
+        Short getTipo();
+        Short getFormaPagamento();
+        Long getValor();
+        Short getStatus();
+        Long getUsuarioId();
+
+        LocalDate getDataAnterior();
+        Short getCategoriaAnterior();
+        Short getTipoAnterior();
+        Short getStatusAnterior();
+        Long getValorAnterior();
+
+        // A despesa como ficou
+        default Despesa despesa() {
+            return new Despesa(getId(), getData(), getDescricao(), CategoriaDespesa.deCodigo(getCategoria()),
+                    TipoLancamento.deCodigo(getTipo()), FormaPagamento.deCodigo(getFormaPagamento()),
+                    dinheiro(getValor()), StatusDespesa.deCodigo(getStatus()), getUsuarioId());
+        }
+
+        // So os campos de antes que fazem parte do resumo mensal
+        default Despesa anterior() {
+            Despesa anterior = new Despesa();
+            anterior.setUsuarioId(getUsuarioId());
+            anterior.setData(getDataAnterior());
+            anterior.setCategoria(CategoriaDespesa.deCodigo(getCategoriaAnterior()));
+            anterior.setTipo(TipoLancamento.deCodigo(getTipoAnterior()));
+            anterior.setStatus(StatusDespesa.deCodigo(getStatusAnterior()));
+            anterior.setValor(dinheiro(getValorAnterior()));
+            return anterior;
+        }
+
+        private static Dinheiro dinheiro(Long centavos) {
+            return centavos != null ? Dinheiro.deCentavos(centavos) : null;
+        }
+    }
 }
@@ -1,9 +1,14 @@
 package com.financeiro.repository;
 
 import com.financeiro.model.Investimento;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository de Investimento - acessa a tabela de investimentos no banco.
@@ -12,4 +17,74 @@ public interface InvestimentoRepository extends JpaRepository<Investimento, Long
 
     // Busca todos os investimentos de um usuario
     List<Investimento> findByUsuarioId(Long usuarioId);
+
+    // Pagina de investimentos do usuario (keyset): os proximos "limit" com id maior que o cursor
+    List<Investimento> findByUsuarioIdAndIdGreaterThanOrderByIdAsc(Long usuarioId, Long id, Limit limit);
+
+    /**
+     * Soma o valor investido e o patrimonio (valor + rentabilidade real)
+     * dos investimentos ativos do usuario, em centavos. Retorna uma unica linha.
+     * O patrimonio de cada investimento eh arredondado para o centavo antes da soma.
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(valor_investido), 0) AS BIGINT) AS totalInvestido, " +
+                   "CAST(COALESCE(SUM(ROUND(COALESCE(valor_investido, 0) * (1 + COALESCE(rentabilidade_real, 0) / 100.0))), 0) " +
+                   "AS BIGINT) AS patrimonio " +
+                   "FROM investimentos " +
+                   "WHERE usuario_id = :usuarioId AND UPPER(status) = 'ATIVO'",
+           nativeQuery = true)
+    TotalInvestimento somarAtivos(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Atualiza o investimento do usuario em um unico comando (so os campos preenchidos em "i")
+     * e devolve como ficou; vazio quando o id nao existe ou o investimento eh de outro usuario.
+     */
+    @Query(value = "UPDATE investimentos SET " +
+                   "tipo = COALESCE(CAST(:#{#i.tipo} AS VARCHAR), tipo), " +
+                   "descricao = COALESCE(CAST(:#{#i.descricao} AS VARCHAR), descricao), " +
+                   "data_aporte = COALESCE(CAST(:#{#i.dataAporte} AS DATE), data_aporte), " +
+                   "valor_investido = COALESCE(CAST(:#{#i.valorInvestido?.centavos()} AS BIGINT), valor_investido), " +
+                   "rentabilidade_estimada = COALESCE(CAST(:#{#i.rentabilidadeEstimada} AS DOUBLE PRECISION), rentabilidade_estimada), " +
+                   "rentabilidade_real = COALESCE(CAST(:#{#i.rentabilidadeReal} AS DOUBLE PRECISION), rentabilidade_real), " +
+                   "status = COALESCE(CAST(:#{#i.status} AS VARCHAR), status) " +
+                   "WHERE id = :id AND usuario_id = :usuarioId " +
+                   "RETURNING *",
+           nativeQuery = true)
+    Optional<Investimento> atualizarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId,
+                                              @Param("i") Investimento i);
+
+    /**
+     * Trava a linha do investimento do usuario ate o fim da transacao e devolve os campos
+     * que saem do historico; vazio quando o id nao existe ou o investimento eh de outro usuario.
+     * Toda escrita no historico passa por aqui, entao duas escritas no mesmo investimento
+     * recalculam os campos uma depois da outra (cada uma ve o movimento da outra).
+     */
+    @Query(value = "SELECT valor_investido AS valorInvestido, rentabilidade_real AS rentabilidadeReal " +
+                   "FROM investimentos WHERE id = :id AND usuario_id = :usuarioId FOR UPDATE",
+           nativeQuery = true)
+    Optional<Posicao> travarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Grava os campos recalculados do historico (inclusive vazios: rentabilidade null)
+    @Modifying
+    @Query(value = "UPDATE investimentos SET valor_investido = :valorInvestido, " +
+                   "rentabilidade_real = CAST(:rentabilidadeReal AS DOUBLE PRECISION) WHERE id = :id",
+           nativeQuery = true)
+    int gravarPosicao(@Param("id") Long id, @Param("valorInvestido") long valorInvestido,
+                      @Param("rentabilidadeReal") Double rentabilidadeReal);
+
+    // Apaga o investimento do usuario em um unico comando; retorna 0 se nao existe ou eh de outro usuario
+    @Modifying
+    @Query("DELETE FROM Investimento i WHERE i.id = :id AND i.usuarioId = :usuarioId")
+    int deletarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Campos do investimento que saem do historico (valor investido em centavos)
+    interface Posicao {
+        Long getValorInvestido();
+        Double getRentabilidadeReal();
+    }
+
+    // Linha do resultado da soma dos investimentos ativos (valores em centavos)
+    interface TotalInvestimento {
+        Long getTotalInvestido();
+        Long getPatrimonio();
+    }
 }
@@ -1,9 +1,14 @@
 package com.financeiro.repository;
 
 import com.financeiro.model.Meta;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository de Meta - acessa a tabela de metas no banco.
@@ -12,4 +17,27 @@ public interface MetaRepository extends JpaRepository<Meta, Long> {
 
     // Busca todas as metas de um usuario
     List<Meta> findByUsuarioId(Long usuarioId);
+
+    // Pagina de metas do usuario (keyset): os proximos "limit" com id maior que o cursor
+    List<Meta> findByUsuarioIdAndIdGreaterThanOrderByIdAsc(Long usuarioId, Long id, Limit limit);
+
+    /**
+     * Atualiza a meta do usuario em um unico comando (so os campos preenchidos em "m")
+     * e devolve como ficou; vazio quando o id nao existe ou a meta eh de outro usuario.
+     */
+    @Query(value = "UPDATE metas SET " +
+                   "descricao = COALESCE(CAST(:#{#m.descricao} AS VARCHAR), descricao), " +
+                   "valor_meta = COALESCE(CAST(:#{#m.valorMeta?.centavos()} AS BIGINT), valor_meta), " +
+                   "valor_atual = COALESCE(CAST(:#{#m.valorAtual?.centavos()} AS BIGINT), valor_atual), " +
+                   "aporte_mensal = COALESCE(CAST(:#{#m.aporteMensal?.centavos()} AS BIGINT), aporte_mensal) " +
+                   "WHERE id = :id AND usuario_id = :usuarioId " +
+                   "RETURNING *",
+           nativeQuery = true)
+    Optional<Meta> atualizarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId,
+                                      @Param("m") Meta m);
+
+    // Apaga a meta do usuario em um unico comando; retorna 0 se nao existe ou eh de outro usuario
+    @Modifying
+    @Query("DELETE FROM Meta m WHERE m.id = :id AND m.usuarioId = :usuarioId")
+    int deletarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
 }
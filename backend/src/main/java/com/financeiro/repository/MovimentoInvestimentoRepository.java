@@ -0,0 +1,33 @@
+package com.financeiro.repository;
+
+import com.financeiro.model.MovimentoInvestimento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository de MovimentoInvestimento - historico de aportes, resgates e avaliacoes.
+ */
+public interface MovimentoInvestimentoRepository extends JpaRepository<MovimentoInvestimento, Long> {
+
+    // Movimentos de um investimento do usuario, em ordem de data (e de cadastro no mesmo dia)
+    List<MovimentoInvestimento> findByUsuarioIdAndInvestimentoIdOrderByDataAscIdAsc(Long usuarioId, Long investimentoId);
+
+    // Todos os movimentos do usuario, em ordem de data (e de cadastro no mesmo dia)
+    List<MovimentoInvestimento> findByUsuarioIdOrderByDataAscIdAsc(Long usuarioId);
+
+    // Apaga o movimento do usuario em um unico comando; retorna 0 se nao existe ou eh de outro usuario
+    @Modifying
+    @Query("DELETE FROM MovimentoInvestimento m WHERE m.id = :id AND m.investimentoId = :investimentoId " +
+           "AND m.usuarioId = :usuarioId")
+    int deletarDoUsuario(@Param("id") Long id, @Param("investimentoId") Long investimentoId,
+                         @Param("usuarioId") Long usuarioId);
+
+    // Apaga o historico de um investimento (quando o investimento eh deletado)
+    @Modifying
+    @Query("DELETE FROM MovimentoInvestimento m WHERE m.investimentoId = :investimentoId AND m.usuarioId = :usuarioId")
+    int deletarDoInvestimento(@Param("investimentoId") Long investimentoId, @Param("usuarioId") Long usuarioId);
+}
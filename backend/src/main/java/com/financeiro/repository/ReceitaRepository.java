@@ -1,10 +1,20 @@
 package com.financeiro.repository;
 
+import com.financeiro.model.Dinheiro;
 import com.financeiro.model.Receita;
+import com.financeiro.model.TipoLancamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository de Receita - acessa a tabela de receitas no banco.
@@ -17,4 +27,87 @@ public interface ReceitaRepository extends JpaRepository<Receita, Long> {
 
     // Busca receitas de um usuario em um periodo (usado para filtrar por mes)
     List<Receita> findByUsuarioIdAndDataBetween(Long usuarioId, LocalDate inicio, LocalDate fim);
+
+    // Pagina de receitas do periodo (keyset): as proximas "limit" com id maior que o cursor
+    List<Receita> findByUsuarioIdAndDataBetweenAndIdGreaterThanOrderByIdAsc(Long usuarioId,
+                                                                            LocalDate inicio,
+                                                                            LocalDate fim,
+                                                                            Long id,
+                                                                            Limit limit);
+
+    /**
+     * Receitas do periodo como Stream, lidas do banco aos poucos (fetch size).
+     * Precisa ser usado dentro de uma transacao e fechado no final.
+     */
+    @Query("SELECT r FROM Receita r WHERE r.usuarioId = :usuarioId AND r.data BETWEEN :inicio AND :fim " +
+           "ORDER BY r.data, r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Receita> streamPorPeriodo(@Param("usuarioId") Long usuarioId,
+                                     @Param("inicio") LocalDate inicio,
+                                     @Param("fim") LocalDate fim);
+
+    /**
+     * Atualiza a receita do usuario em um unico comando: data, fonte, tipo e valor so mudam
+     * se vierem preenchidos em "r"; as observacoes sempre sao trocadas.
+     * Devolve a receita como ficou e os valores de antes (para tirar do resumo mensal);
+     * vazio quando o id nao existe ou a receita eh de outro usuario.
+     */
+    @Query(value = "UPDATE receitas r SET " +
+                   "data = COALESCE(CAST(:#{#r.data} AS DATE), r.data), " +
+                   "fonte = COALESCE(CAST(:#{#r.fonte} AS VARCHAR), r.fonte), " +
+                   "tipo = COALESCE(CAST(:#{#r.tipo?.codigo} AS SMALLINT), r.tipo), " +
+                   "valor = COALESCE(CAST(:#{#r.valor?.centavos()} AS BIGINT), r.valor), " +
+                   "observacoes = CAST(:#{#r.observacoes} AS VARCHAR) " +
+                   // A linha de antes, travada ate o fim da transacao
+                   "FROM (SELECT id, data, tipo, valor FROM receitas " +
+                   "WHERE id = :id AND usuario_id = :usuarioId FOR UPDATE) anterior " +
+                   "WHERE r.id = anterior.id " +
+                   "RETURNING r.id, r.data, r.fonte, r.tipo, r.valor, r.observacoes, r.usuario_id AS usuarioId, " +
+                   "anterior.data AS dataAnterior, anterior.tipo AS tipoAnterior, anterior.valor AS valorAnterior",
+           nativeQuery = true)
+    Optional<ReceitaAlterada> atualizarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId,
+                                                 @Param("r") Receita r);
+
+    /**
+     * Apaga a receita do usuario em um unico comando e devolve a linha apagada;
+     * vazio quando o id nao existe ou a receita eh de outro usuario.
+     */
+    @Query(value = "DELETE FROM receitas WHERE id = :id AND usuario_id = :usuarioId RETURNING *",
+           nativeQuery = true)
+    Optional<Receita> deletarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Linha devolvida pelo atualizarDoUsuario (codigo do tipo e valores em centavos)
+    interface ReceitaAlterada {
+        Long getId();
+        LocalDate getData();
+        String getFonte();
+        Short getTipo();
+        Long getValor();
+        String getObservacoes();
+        Long getUsuarioId();
+
+        LocalDate getDataAnterior();
+        Short getTipoAnterior();
+        Long getValorAnterior();
+
+        // A receita como ficou
+        default Receita receita() {
+            return new Receita(getId(), getData(), getFonte(), TipoLancamento.deCodigo(getTipo()),
+                    dinheiro(getValor()), getObservacoes(), getUsuarioId());
+        }
+
+        // So os campos de antes que fazem parte do resumo mensal
+        default Receita anterior() {
+            Receita anterior = new Receita();
+            anterior.setUsuarioId(getUsuarioId());
+            anterior.setData(getDataAnterior());
+            anterior.setTipo(TipoLancamento.deCodigo(getTipoAnterior()));
+            anterior.setValor(dinheiro(getValorAnterior()));
+            return anterior;
+        }
+
+        private static Dinheiro dinheiro(Long centavos) {
+            return centavos != null ? Dinheiro.deCentavos(centavos) : null;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package com.financeiro.repository;
+
+import com.financeiro.model.Recorrencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository de Recorrencia - acessa as regras de despesas/receitas fixas
+ * e o ponto de parada do job que gera os lancamentos de cada mes.
+ */
+public interface RecorrenciaRepository extends JpaRepository<Recorrencia, Long> {
+
+    // Busca todas as recorrencias de um usuario
+    List<Recorrencia> findByUsuarioIdOrderByIdAsc(Long usuarioId);
+
+    /**
+     * Atualiza a recorrencia do usuario em um unico comando (so os campos preenchidos em "r")
+     * e devolve como ficou; vazio quando o id nao existe ou eh de outro usuario.
+     * O fim so fica vazio com r.semFim = true (fim null quer dizer "nao mudou").
+     */
+    @Query(value = "UPDATE recorrencias SET " +
+                   "lancamento = COALESCE(CAST(:#{#r.lancamento} AS VARCHAR), lancamento), " +
+                   "descricao = COALESCE(CAST(:#{#r.descricao} AS VARCHAR), descricao), " +
+                   "categoria = COALESCE(CAST(:#{#r.categoria?.codigo} AS SMALLINT), categoria), " +
+                   "forma_pagamento = COALESCE(CAST(:#{#r.formaPagamento?.codigo} AS SMALLINT), forma_pagamento), " +
+                   "valor = COALESCE(CAST(:#{#r.valor?.centavos()} AS BIGINT), valor), " +
+                   "dia_do_mes = COALESCE(CAST(:#{#r.diaDoMes} AS INTEGER), dia_do_mes), " +
+                   "inicio = COALESCE(CAST(:#{#r.inicio} AS DATE), inicio), " +
+                   "fim = CASE WHEN CAST(:#{#r.semFim} AS BOOLEAN) THEN NULL " +
+                   "ELSE COALESCE(CAST(:#{#r.fim} AS DATE), fim) END " +
+                   "WHERE id = :id AND usuario_id = :usuarioId " +
+                   "RETURNING *",
+           nativeQuery = true)
+    Optional<Recorrencia> atualizarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId,
+                                             @Param("r") Recorrencia r);
+
+    // Apaga a recorrencia do usuario em um unico comando; retorna 0 se nao existe ou eh de outro usuario
+    @Modifying
+    @Query("DELETE FROM Recorrencia r WHERE r.id = :id AND r.usuarioId = :usuarioId")
+    int deletarDoUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Geracao dos lancamentos (job) ---
+
+    /**
+     * Proximos usuarios (em ordem de id, depois do ponto de parada) com alguma
+     * recorrencia ainda nao gerada ate o "mes" (primeiro dia do mes).
+     */
+    @Query(value = "SELECT DISTINCT usuario_id FROM recorrencias " +
+                   "WHERE usuario_id > :depoisDe AND (ultimo_mes_gerado IS NULL OR ultimo_mes_gerado < :mes) " +
+                   "ORDER BY usuario_id LIMIT :limite",
+           nativeQuery = true)
+    List<Long> proximosUsuarios(@Param("depoisDe") long depoisDe, @Param("mes") LocalDate mes,
+                                @Param("limite") int limite);
+
+    // Recorrencias ainda nao geradas ate o "mes" dos usuarios entre "de" e "ate" (inclusive)
+    @Query("SELECT r FROM Recorrencia r WHERE r.usuarioId BETWEEN :de AND :ate " +
+           "AND (r.ultimoMesGerado IS NULL OR r.ultimoMesGerado < :mes) ORDER BY r.usuarioId, r.id")
+    List<Recorrencia> buscarPendentes(@Param("de") Long de, @Param("ate") Long ate, @Param("mes") LocalDate mes);
+
+    // Marca as recorrencias como geradas ate o "mes"
+    @Modifying
+    @Query("UPDATE Recorrencia r SET r.ultimoMesGerado = :mes WHERE r.id IN :ids")
+    void marcarGeradas(@Param("ids") Collection<Long> ids, @Param("mes") LocalDate mes);
+
+    /**
+     * Comeca uma execucao do job ate o "mes". Se a ultima execucao terminou, volta
+     * para o primeiro usuario; se parou no meio, mantem o ponto de parada.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO geracao_recorrencias (mes) VALUES (:mes) " +
+                   "ON CONFLICT (mes) DO UPDATE SET ultimo_usuario_id = 0, concluida = FALSE, atualizada_em = now() " +
+                   "WHERE geracao_recorrencias.concluida",
+           nativeQuery = true)
+    void iniciarGeracao(@Param("mes") LocalDate mes);
+
+    /**
+     * Ultimo usuario ja gerado, travando a linha ate o fim da transacao (duas instancias
+     * rodando o job ao mesmo tempo processam blocos diferentes, um de cada vez).
+     * Vazio quando a execucao ja foi concluida.
+     */
+    @Query(value = "SELECT ultimo_usuario_id FROM geracao_recorrencias WHERE mes = :mes AND NOT concluida FOR UPDATE",
+           nativeQuery = true)
+    Optional<Long> travarPontoDeParada(@Param("mes") LocalDate mes);
+
+    @Modifying
+    @Query(value = "UPDATE geracao_recorrencias SET ultimo_usuario_id = :usuarioId, concluida = :concluida, " +
+                   "atualizada_em = now() WHERE mes = :mes",
+           nativeQuery = true)
+    void gravarPontoDeParada(@Param("mes") LocalDate mes, @Param("usuarioId") long usuarioId,
+                             @Param("concluida") boolean concluida);
+}
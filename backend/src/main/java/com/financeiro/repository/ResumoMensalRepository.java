@@ -0,0 +1,119 @@
+package com.financeiro.repository;
+
+import com.financeiro.model.ResumoMensal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository do ResumoMensal - acessa a tabela resumo_mensal no banco.
+ * Tem o UPSERT usado nas escritas e as queries para recalcular um mes do zero.
+ */
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, Long> {
+
+    // UPSERT de um grupo (tambem usado em lote pelo ResumoMensalService, com os mesmos parametros)
+    String SOMAR = "INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade) " +
+                   "VALUES (:usuarioId, :ano, :mes, :lancamento, :categoria, :tipo, :status, :total, :quantidade) " +
+                   "ON CONFLICT (usuario_id, ano, mes, lancamento, categoria, tipo, status) DO UPDATE SET " +
+                   "total = resumo_mensal.total + EXCLUDED.total, " +
+                   "quantidade = resumo_mensal.quantidade + EXCLUDED.quantidade";
+
+    // Busca as linhas do resumo de um mes do usuario
+    List<ResumoMensal> findByUsuarioIdAndAnoAndMes(Long usuarioId, Integer ano, Integer mes);
+
+    /**
+     * Busca as linhas do resumo de varios meses de uma vez (de/ate no formato ano * 100 + mes,
+     * ex: 202601). Sao poucas linhas por mes, entao o custo cresce com a quantidade de meses.
+     */
+    @Query("SELECT r FROM ResumoMensal r WHERE r.usuarioId = :usuarioId " +
+           "AND (r.ano * 100 + r.mes) BETWEEN :de AND :ate ORDER BY r.ano, r.mes")
+    List<ResumoMensal> buscarPeriodo(@Param("usuarioId") Long usuarioId, @Param("de") int de, @Param("ate") int ate);
+
+    /**
+     * Soma um delta (valor em centavos e quantidade) no grupo do mes.
+     * Cria a linha se ainda nao existir (INSERT ... ON CONFLICT do PostgreSQL).
+     * Categoria, tipo e status sao os codigos dos enums (0 = sem valor).
+     */
+    @Modifying
+    @Query(value = SOMAR, nativeQuery = true)
+    void somar(@Param("usuarioId") Long usuarioId, @Param("ano") int ano, @Param("mes") int mes,
+               @Param("lancamento") String lancamento, @Param("categoria") short categoria,
+               @Param("tipo") short tipo, @Param("status") short status,
+               @Param("total") long total, @Param("quantidade") long quantidade);
+
+    // Remove os grupos que ficaram sem lancamentos (ex: depois de deletar a ultima despesa da categoria)
+    @Modifying
+    @Query("DELETE FROM ResumoMensal r WHERE r.usuarioId = :usuarioId AND r.ano = :ano AND r.mes = :mes " +
+           "AND r.quantidade <= 0")
+    void removerGruposVazios(@Param("usuarioId") Long usuarioId, @Param("ano") Integer ano,
+                             @Param("mes") Integer mes);
+
+    // --- Recalculo de um mes do zero (para corrigir diferencas acumuladas) ---
+    // O INSERT troca o grupo (ON CONFLICT) em vez de falhar se uma escrita concorrente
+    // recriou o grupo depois do DELETE.
+
+    @Modifying
+    @Query("DELETE FROM ResumoMensal r WHERE r.usuarioId = :usuarioId AND r.ano = :ano AND r.mes = :mes")
+    void apagarMes(@Param("usuarioId") Long usuarioId, @Param("ano") Integer ano, @Param("mes") Integer mes);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade) " +
+                   "SELECT usuario_id, :ano, :mes, 'DESPESA', COALESCE(categoria, 0), COALESCE(tipo, 0), " +
+                   "COALESCE(status, 0), COALESCE(SUM(valor), 0), COUNT(*) " +
+                   "FROM despesas WHERE usuario_id = :usuarioId AND data BETWEEN :inicio AND :fim " +
+                   "GROUP BY usuario_id, COALESCE(categoria, 0), COALESCE(tipo, 0), COALESCE(status, 0) " +
+                   "ON CONFLICT (usuario_id, ano, mes, lancamento, categoria, tipo, status) DO UPDATE SET " +
+                   "total = EXCLUDED.total, quantidade = EXCLUDED.quantidade",
+           nativeQuery = true)
+    void recalcularDespesas(@Param("usuarioId") Long usuarioId, @Param("ano") int ano, @Param("mes") int mes,
+                            @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade) " +
+                   "SELECT usuario_id, :ano, :mes, 'RECEITA', 0, COALESCE(tipo, 0), 0, " +
+                   "COALESCE(SUM(valor), 0), COUNT(*) " +
+                   "FROM receitas WHERE usuario_id = :usuarioId AND data BETWEEN :inicio AND :fim " +
+                   "GROUP BY usuario_id, COALESCE(tipo, 0) " +
+                   "ON CONFLICT (usuario_id, ano, mes, lancamento, categoria, tipo, status) DO UPDATE SET " +
+                   "total = EXCLUDED.total, quantidade = EXCLUDED.quantidade",
+           nativeQuery = true)
+    void recalcularReceitas(@Param("usuarioId") Long usuarioId, @Param("ano") int ano, @Param("mes") int mes,
+                            @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    // --- Recalculo de um mes para um bloco de usuarios (ids de "de" ate "ate", job agendado) ---
+
+    @Modifying
+    @Query("DELETE FROM ResumoMensal r WHERE r.usuarioId BETWEEN :de AND :ate AND r.ano = :ano AND r.mes = :mes")
+    void apagarMesDoBloco(@Param("de") Long de, @Param("ate") Long ate,
+                          @Param("ano") Integer ano, @Param("mes") Integer mes);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade) " +
+                   "SELECT usuario_id, :ano, :mes, 'DESPESA', COALESCE(categoria, 0), COALESCE(tipo, 0), " +
+                   "COALESCE(status, 0), COALESCE(SUM(valor), 0), COUNT(*) " +
+                   "FROM despesas WHERE usuario_id BETWEEN :de AND :ate AND data BETWEEN :inicio AND :fim " +
+                   "GROUP BY usuario_id, COALESCE(categoria, 0), COALESCE(tipo, 0), COALESCE(status, 0) " +
+                   "ON CONFLICT (usuario_id, ano, mes, lancamento, categoria, tipo, status) DO UPDATE SET " +
+                   "total = EXCLUDED.total, quantidade = EXCLUDED.quantidade",
+           nativeQuery = true)
+    void recalcularDespesasDoBloco(@Param("de") Long de, @Param("ate") Long ate,
+                                   @Param("ano") int ano, @Param("mes") int mes,
+                                   @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade) " +
+                   "SELECT usuario_id, :ano, :mes, 'RECEITA', 0, COALESCE(tipo, 0), 0, " +
+                   "COALESCE(SUM(valor), 0), COUNT(*) " +
+                   "FROM receitas WHERE usuario_id BETWEEN :de AND :ate AND data BETWEEN :inicio AND :fim " +
+                   "GROUP BY usuario_id, COALESCE(tipo, 0) " +
+                   "ON CONFLICT (usuario_id, ano, mes, lancamento, categoria, tipo, status) DO UPDATE SET " +
+                   "total = EXCLUDED.total, quantidade = EXCLUDED.quantidade",
+           nativeQuery = true)
+    void recalcularReceitasDoBloco(@Param("de") Long de, @Param("ate") Long ate,
+                                   @Param("ano") int ano, @Param("mes") int mes,
+                                   @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
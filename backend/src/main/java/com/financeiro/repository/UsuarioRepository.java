@@ -2,7 +2,13 @@ package com.financeiro.repository;
 
 import com.financeiro.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,4 +22,29 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     // Verifica se ja existe um usuario com esse email (usado no registro)
     boolean existsByEmail(String email);
+
+    // Busca so a versao dos dados do usuario (usada no ETag)
+    @Query("SELECT u.versaoDados FROM Usuario u WHERE u.id = :id")
+    Long buscarVersaoDados(@Param("id") Long id);
+
+    // Incrementa a versao dos dados do usuario (a cada escrita)
+    @Modifying
+    @Query("UPDATE Usuario u SET u.versaoDados = u.versaoDados + 1 WHERE u.id = :id")
+    void incrementarVersaoDados(@Param("id") Long id);
+
+    // Incrementa a versao dos dados de varios usuarios (ex: recorrencias geradas pelo job)
+    @Modifying
+    @Query("UPDATE Usuario u SET u.versaoDados = u.versaoDados + 1 WHERE u.id IN :ids")
+    void incrementarVersaoDadosDe(@Param("ids") Collection<Long> ids);
+
+    // Proximos ids de usuario depois de "depoisDe", em ordem (jobs que percorrem todos em blocos)
+    @Query(value = "SELECT id FROM usuarios WHERE id > :depoisDe ORDER BY id LIMIT :limite", nativeQuery = true)
+    List<Long> proximosIds(@Param("depoisDe") long depoisDe, @Param("limite") int limite);
+
+    // Troca o hash da senha so se ainda for o mesmo (refazer o hash com outro custo no login)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.senha = :hashNovo WHERE u.id = :id AND u.senha = :hashAntigo")
+    int trocarHashSenha(@Param("id") Long id, @Param("hashAntigo") String hashAntigo,
+                        @Param("hashNovo") String hashNovo);
 }
@@ -0,0 +1,310 @@
+package com.financeiro.service;
+
+/**
+ * Rentabilidade de grupos de investimentos (um investimento, um tipo, a carteira toda)
+ * a partir do historico de movimentos:
+ *
+ * - XIRR: a taxa anual que zera o valor presente dos aportes (negativos), resgates
+ *   (positivos) e do valor atual da posicao (positivo, na data do ultimo movimento).
+ *   Resolve por Newton em x = ln(1 + taxa); se Newton nao convergir, abre um intervalo
+ *   com troca de sinal e usa Brent (sempre converge dentro do intervalo).
+ * - TWR (time-weighted): encadeia o retorno de cada periodo entre avaliacoes, pelo
+ *   metodo de Dietz modificado (cada aporte/resgate pesa pela fracao do periodo em que
+ *   ficou investido). Nao depende de quando nem de quanto o usuario aportou.
+ *
+ * Os movimentos de todos os investimentos ficam em arrays primitivos, em ordem de data,
+ * e cada grupo eh uma lista de posicoes nesses arrays (tambem em ordem de data). Num
+ * grupo com varios investimentos, o valor de quem nao foi avaliado na data eh o da sua
+ * ultima avaliacao mais os aportes e menos os resgates desde entao.
+ * Nao eh thread-safe: usa arrays de rascunho proprios. Valores em centavos.
+ */
+public final class CalculadoraRentabilidade {
+
+    private static final double DIAS_ANO = 365.0;
+
+    // Maior expoente de e^(-ano * x): e^600 ~ 4e260, ainda cabe no double vezes qualquer valor em centavos
+    private static final double MAIOR_EXPOENTE = 600;
+
+    private static final int ITERACOES_NEWTON = 50;
+    private static final int ITERACOES_BRENT = 200;
+
+    // Precisao de x e do valor presente (relativa a soma dos fluxos)
+    private static final double PRECISAO_X = 1e-12;
+    private static final double PRECISAO_VPL = 1e-10;
+
+    // Movimentos: dia (epoch day), investimento (0..quantidade-1) e valor.
+    // Aporte positivo, resgate negativo; na avaliacao, o valor da posicao.
+    private final int[] dias;
+    private final int[] ativos;
+    private final long[] valores;
+    private final boolean[] avaliacoes;
+
+    // Rascunho: valor de cada investimento durante a varredura e os fluxos do XIRR
+    private final long[] posicoes;
+    private final double[] anos;
+    private final double[] fluxos;
+
+    public CalculadoraRentabilidade(int[] dias, int[] ativos, long[] valores, boolean[] avaliacoes,
+                                    int quantidadeAtivos) {
+        this.dias = dias;
+        this.ativos = ativos;
+        this.valores = valores;
+        this.avaliacoes = avaliacoes;
+        this.posicoes = new long[quantidadeAtivos];
+        this.anos = new double[dias.length + 1];
+        this.fluxos = new double[dias.length + 1];
+    }
+
+    /**
+     * Rentabilidade do grupo formado pelas "tamanho" primeiras posicoes de "grupo"
+     * (indices dos movimentos, em ordem de data).
+     */
+    public Resultado calcular(int[] grupo, int tamanho) {
+        if (tamanho == 0) {
+            return new Resultado(0, 0, 0, 0, 0, 0, Double.NaN, Double.NaN, Double.NaN);
+        }
+        for (int k = 0; k < tamanho; k++) {
+            posicoes[ativos[grupo[k]]] = 0;
+        }
+
+        int primeiroDia = dias[grupo[0]];
+        long total = 0;
+        long aportes = 0;
+        long resgates = 0;
+        int quantidadeFluxos = 0;
+
+        // Periodo atual do TWR: inicio, valor no inicio, soma dos fluxos e dos fluxos * dia
+        int inicioPeriodo = primeiroDia;
+        long valorInicio = 0;
+        long fluxoPeriodo = 0;
+        double fluxoPorDia = 0;
+        double fatorAcumulado = 1;
+        int ultimaAvaliacao = Integer.MIN_VALUE;
+
+        int k = 0;
+        while (k < tamanho) {
+            int dia = dias[grupo[k]];
+            long fluxoDia = 0;
+            boolean avaliado = false;
+            for (; k < tamanho && dias[grupo[k]] == dia; k++) {
+                int m = grupo[k];
+                int ativo = ativos[m];
+                long valor = valores[m];
+                if (avaliacoes[m]) {
+                    total += valor - posicoes[ativo];
+                    posicoes[ativo] = valor;
+                    avaliado = true;
+                    continue;
+                }
+                if (posicoes[ativo] + valor < 0) {
+                    // Resgate maior que a posicao conhecida: a posicao valia pelo menos o resgate
+                    total += -valor - posicoes[ativo];
+                    posicoes[ativo] = -valor;
+                    avaliado = true;
+                }
+                total += valor;
+                posicoes[ativo] += valor;
+                fluxoDia += valor;
+                if (valor > 0) {
+                    aportes += valor;
+                } else {
+                    resgates -= valor;
+                }
+            }
+
+            if (fluxoDia != 0) {
+                anos[quantidadeFluxos] = (dia - primeiroDia) / DIAS_ANO;
+                fluxos[quantidadeFluxos] = -fluxoDia;
+                quantidadeFluxos++;
+            }
+            fluxoPeriodo += fluxoDia;
+            fluxoPorDia += (double) fluxoDia * dia;
+
+            if (avaliado) {
+                // Dietz modificado: fluxos do ultimo dia do periodo nao ficaram investidos;
+                // no primeiro periodo de um dia so, os aportes contam inteiros
+                int duracao = dia - inicioPeriodo;
+                double ponderado = duracao > 0
+                        ? ((double) fluxoPeriodo * dia - fluxoPorDia) / duracao
+                        : fluxoPeriodo;
+                double base = valorInicio + ponderado;
+                if (base > 0) {
+                    fatorAcumulado *= Math.max(0, 1 + (total - valorInicio - fluxoPeriodo) / base);
+                }
+                inicioPeriodo = dia;
+                valorInicio = total;
+                fluxoPeriodo = 0;
+                fluxoPorDia = 0;
+                ultimaAvaliacao = dia;
+            }
+        }
+
+        int ultimoDia = dias[grupo[tamanho - 1]];
+        if (ultimaAvaliacao == Integer.MIN_VALUE) {
+            // Sem nenhuma avaliacao nao ha como saber quanto rendeu
+            return new Resultado(tamanho, aportes, resgates, total, primeiroDia, ultimoDia,
+                    Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        // Valor atual como resgate final na data do ultimo movimento
+        double anoFinal = (ultimoDia - primeiroDia) / DIAS_ANO;
+        if (quantidadeFluxos > 0 && anos[quantidadeFluxos - 1] == anoFinal) {
+            fluxos[quantidadeFluxos - 1] += total;
+        } else {
+            anos[quantidadeFluxos] = anoFinal;
+            fluxos[quantidadeFluxos] = total;
+            quantidadeFluxos++;
+        }
+
+        double twr = fatorAcumulado - 1;
+        int historico = ultimaAvaliacao - primeiroDia;
+        double twrAnualizada = historico >= DIAS_ANO
+                ? Math.pow(fatorAcumulado, DIAS_ANO / historico) - 1 : Double.NaN;
+        return new Resultado(tamanho, aportes, resgates, total, primeiroDia, ultimoDia,
+                xirr(anos, fluxos, quantidadeFluxos), twr, twrAnualizada);
+    }
+
+    /**
+     * Taxa anual (fracao) que zera a soma de fluxos[i] / (1 + taxa)^anos[i], ou NaN se nao houver
+     * (ex: todos os fluxos com o mesmo sinal). Usa so as "n" primeiras posicoes dos arrays.
+     */
+    public static double xirr(double[] anos, double[] fluxos, int n) {
+        double escala = 0;
+        double ultimoAno = 0;
+        for (int i = 0; i < n; i++) {
+            escala += Math.abs(fluxos[i]);
+            ultimoAno = Math.max(ultimoAno, anos[i]);
+        }
+        if (escala == 0 || ultimoAno == 0) {
+            return Double.NaN;
+        }
+        double precisao = PRECISAO_VPL * escala;
+        // Limite de |x| para os termos nao estourarem (em prazos curtos, taxas anuais enormes sao validas)
+        double limite = MAIOR_EXPOENTE / ultimoAno;
+
+        // Newton em x = ln(1 + taxa): vpl(x) = soma de fluxo * e^(-ano * x), sem restricao de dominio
+        double x = Math.log1p(0.1);
+        for (int iteracao = 0; iteracao < ITERACOES_NEWTON; iteracao++) {
+            double vpl = 0;
+            double derivada = 0;
+            for (int i = 0; i < n; i++) {
+                double termo = fluxos[i] * Math.exp(-anos[i] * x);
+                vpl += termo;
+                derivada -= anos[i] * termo;
+            }
+            if (Math.abs(vpl) <= precisao) {
+                return Math.expm1(x);
+            }
+            if (derivada == 0 || !Double.isFinite(vpl) || !Double.isFinite(derivada)) {
+                break;
+            }
+            double passo = vpl / derivada;
+            x -= passo;
+            if (!(Math.abs(x) <= limite)) {
+                break;
+            }
+            if (Math.abs(passo) <= PRECISAO_X) {
+                return Math.expm1(x);
+            }
+        }
+        return brent(anos, fluxos, n, precisao, limite);
+    }
+
+    // Brent (bissecao + secante + interpolacao inversa) num intervalo com troca de sinal
+    private static double brent(double[] anos, double[] fluxos, int n, double precisao, double limite) {
+        double a = -1;
+        double b = 1;
+        double fa = vpl(anos, fluxos, n, a);
+        double fb = vpl(anos, fluxos, n, b);
+        while (fa * fb > 0) {
+            if (a <= -limite && b >= limite) {
+                return Double.NaN;
+            }
+            a = Math.max(-limite, a * 2);
+            b = Math.min(limite, b * 2);
+            fa = vpl(anos, fluxos, n, a);
+            fb = vpl(anos, fluxos, n, b);
+        }
+        if (!Double.isFinite(fa) || !Double.isFinite(fb)) {
+            return Double.NaN;
+        }
+
+        double c = b;
+        double fc = fb;
+        double d = b - a;
+        double e = d;
+        for (int iteracao = 0; iteracao < ITERACOES_BRENT; iteracao++) {
+            if ((fb > 0) == (fc > 0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tolerancia = 2 * Math.ulp(1.0) * Math.abs(b) + PRECISAO_X / 2;
+            double meio = (c - b) / 2;
+            if (Math.abs(meio) <= tolerancia || Math.abs(fb) <= precisao) {
+                return Math.expm1(b);
+            }
+            if (Math.abs(e) >= tolerancia && Math.abs(fa) > Math.abs(fb)) {
+                // Secante (dois pontos) ou interpolacao quadratica inversa (tres pontos)
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2 * meio * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * meio * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                }
+                p = Math.abs(p);
+                if (2 * p < Math.min(3 * meio * q - Math.abs(tolerancia * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = meio;
+                    e = d;
+                }
+            } else {
+                d = meio;
+                e = d;
+            }
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tolerancia ? d : Math.copySign(tolerancia, meio);
+            fb = vpl(anos, fluxos, n, b);
+        }
+        return Math.expm1(b);
+    }
+
+    // Valor presente dos fluxos com x = ln(1 + taxa)
+    private static double vpl(double[] anos, double[] fluxos, int n, double x) {
+        double soma = 0;
+        for (int i = 0; i < n; i++) {
+            soma += fluxos[i] * Math.exp(-anos[i] * x);
+        }
+        return soma;
+    }
+
+    /**
+     * Totais e rentabilidade de um grupo (e quantos movimentos ele tem). Dias em epoch day;
+     * taxas em fracao (0.12 = 12%), NaN quando nao da para calcular (sem avaliacao, sem
+     * troca de sinal, ou TWR anualizada com menos de um ano de historico).
+     */
+    public record Resultado(int movimentos, long aportes, long resgates, long valorAtual,
+                            int primeiroDia, int ultimoDia, double xirr, double twr, double twrAnualizada) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.financeiro.service;
+
+import com.financeiro.model.CategoriaDespesa;
+import com.financeiro.model.Despesa;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.ResumoMensal;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acumulador dos indicadores de despesas do dashboard.
+ * Preenche todos os totais em uma unica passada pelas linhas,
+ * usando arrays de long em centavos (somas exatas, sem Double/Map por linha).
+ *
+ * Categoria, tipo e status sao enums: o ordinal eh o indice direto nos arrays
+ * (tamanho fixo), sem comparar texto nem buscar em Map por linha.
+ */
+public class DashboardAccumulator {
+
+    // Tipo e status vazios (null) ficam na ultima posicao
+    private static final int TIPO_OUTRO = TipoLancamento.quantidade();
+    private static final int STATUS_OUTRO = StatusDespesa.quantidade();
+
+    // Categoria usada quando a despesa vem sem categoria
+    private static final CategoriaDespesa CATEGORIA_PADRAO = CategoriaDespesa.OUTROS;
+
+    private static final CategoriaDespesa[] CATEGORIAS = CategoriaDespesa.values();
+
+    private final long[] porTipo = new long[TIPO_OUTRO + 1];
+    private final long[] porStatus = new long[STATUS_OUTRO + 1];
+    private final long[] porCategoria = new long[CATEGORIAS.length];
+
+    // Categorias que apareceram (mesmo somando zero), so elas vao para a lista
+    private final boolean[] temCategoria = new boolean[CATEGORIAS.length];
+
+    private long total;
+    private long investimentos;
+    private long variaveisSemInvestimento;
+
+    /**
+     * Soma uma despesa (entidade) nos indicadores.
+     */
+    public void adicionar(Despesa despesa) {
+        adicionar(despesa.getCategoria(), despesa.getTipo(), despesa.getStatus(),
+                despesa.getValor() != null ? despesa.getValor().centavos() : 0);
+    }
+
+    /**
+     * Soma um valor (em centavos) nos indicadores. Tambem serve para linhas ja agrupadas
+     * pelo banco (categoria, tipo, status, soma).
+     */
+    public void adicionar(CategoriaDespesa categoria, TipoLancamento tipo, StatusDespesa status, long valor) {
+        CategoriaDespesa c = categoria != null ? categoria : CATEGORIA_PADRAO;
+
+        total += valor;
+        porCategoria[c.ordinal()] += valor;
+        temCategoria[c.ordinal()] = true;
+        porTipo[tipo != null ? tipo.ordinal() : TIPO_OUTRO] += valor;
+        porStatus[status != null ? status.ordinal() : STATUS_OUTRO] += valor;
+
+        if (c == CategoriaDespesa.INVESTIMENTOS) {
+            investimentos += valor;
+        } else if (tipo == TipoLancamento.VARIAVEL) {
+            variaveisSemInvestimento += valor;
+        }
+    }
+
+    /**
+     * Soma uma linha do resumo mensal (grupo ja somado pelo banco, com os codigos dos enums).
+     */
+    public void adicionar(ResumoMensal linha) {
+        adicionar(CategoriaDespesa.deCodigo(linha.getCategoria()), TipoLancamento.deCodigo(linha.getTipo()),
+                StatusDespesa.deCodigo(linha.getStatus()), linha.getTotal());
+    }
+
+    // Totais em centavos
+    public long getTotal() {
+        return total;
+    }
+
+    // Despesas na categoria "Investimentos"
+    public long getInvestimentos() {
+        return investimentos;
+    }
+
+    public long getPendentes() {
+        return porStatus[StatusDespesa.PENDENTE.ordinal()];
+    }
+
+    public long getFixas() {
+        return porTipo[TipoLancamento.FIXA.ordinal()];
+    }
+
+    // Despesas variaveis, sem contar a categoria "Investimentos" (regra 50/30/20)
+    public long getVariaveis() {
+        return variaveisSemInvestimento;
+    }
+
+    /**
+     * Monta a lista de gastos por categoria (valor e percentual),
+     * ordenada pelo maior valor.
+     */
+    public List<Map<String, Object>> getGastosPorCategoria() {
+        List<CategoriaDespesa> presentes = new ArrayList<>(CATEGORIAS.length);
+        for (CategoriaDespesa categoria : CATEGORIAS) {
+            if (temCategoria[categoria.ordinal()]) {
+                presentes.add(categoria);
+            }
+        }
+        presentes.sort((a, b) -> Long.compare(porCategoria[b.ordinal()], porCategoria[a.ordinal()]));
+
+        List<Map<String, Object>> gastos = new ArrayList<>(presentes.size());
+        for (CategoriaDespesa c : presentes) {
+            Map<String, Object> categoria = new HashMap<>();
+            categoria.put("categoria", c.getRotulo());
+            categoria.put("valor", Dinheiro.deCentavos(porCategoria[c.ordinal()]));
+            categoria.put("percentual", percentual(porCategoria[c.ordinal()], total));
+            gastos.add(categoria);
+        }
+        return gastos;
+    }
+
+    /**
+     * Quanto "parte" representa de "todo", em percentual com duas casas (0 se "todo" nao for positivo).
+     */
+    static double percentual(long parte, long todo) {
+        return todo > 0 ? Math.round(parte * 10000.0 / todo) / 100.0 : 0;
+    }
+}
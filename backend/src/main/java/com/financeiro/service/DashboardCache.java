@@ -0,0 +1,182 @@
+package com.financeiro.service;
+
+import com.financeiro.config.RoteamentoDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache em memoria dos indicadores do dashboard.
+ *
+ * Guarda tres partes separadas:
+ * - os indicadores do mes (receitas, despesas, categorias...), por usuario/ano/mes
+ * - os totais dos investimentos, por usuario (valem para todos os meses)
+ * - a rentabilidade (XIRR/TWR) dos investimentos, por usuario
+ *
+ * Assim uma escrita de despesa ou receita invalida so o mes dela, e uma escrita
+ * de investimento (ou de movimento de investimento) invalida so as partes de investimentos. A remocao acontece depois
+ * do commit, para uma leitura concorrente nao guardar de novo o valor antigo.
+ *
+ * O limite eh pelo tamanho estimado em memoria (politica W-TinyLFU do Caffeine).
+ * A validade maxima (ttl) limita o tempo de dado velho quando ha mais de uma
+ * instancia da aplicacao, ja que cada uma tem o seu cache.
+ */
+@Component
+public class DashboardCache {
+
+    // Tamanho maximo estimado de todas as entradas
+    @Value("${dashboard.cache.memoria-maxima:16MB}")
+    private DataSize memoriaMaxima;
+
+    // Tempo maximo de uma entrada no cache (em ms)
+    @Value("${dashboard.cache.ttl:600000}")
+    private long ttl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Listas dentro das entradas, para a estimativa de tamanho
+    private static final List<String> LISTAS = List.of("gastosPorCategoria", "porTipo", "porInvestimento");
+
+    private Cache<ChaveMes, Map<String, Object>> meses;
+    private Cache<Long, Map<String, Object>> investimentos;
+    private Cache<Long, Map<String, Object>> rentabilidades;
+
+    // Chave dos indicadores de um mes
+    private record ChaveMes(Long usuarioId, int ano, int mes) {
+    }
+
+    @PostConstruct
+    public void init() {
+        meses = criarCache("dashboard.meses");
+        investimentos = criarCache("dashboard.investimentos");
+        rentabilidades = criarCache("dashboard.rentabilidade");
+    }
+
+    private <K> Cache<K, Map<String, Object>> criarCache(String nome) {
+        Cache<K, Map<String, Object>> cache = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima.toBytes())
+                .weigher((K chave, Map<String, Object> valor) -> estimarBytes(valor))
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+
+        // Acertos/erros e remocoes por limite (cache.gets, cache.evictions, cache.size...)
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, nome);
+        // O binder so mede a carga de LoadingCache; aqui a carga vem do get(chave, funcao)
+        FunctionTimer.builder("cache.load.duration", cache,
+                        c -> c.stats().loadCount(), c -> c.stats().totalLoadTime(), TimeUnit.NANOSECONDS)
+                .tag("cache", nome)
+                .description("Tempo para calcular os valores que nao estavam no cache")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", nome)
+                .description("Percentual de leituras atendidas pelo cache")
+                .register(meterRegistry);
+        return cache;
+    }
+
+    /**
+     * Indicadores do mes do usuario. Se nao estiverem no cache, calcula com "carregar" e guarda.
+     * O calculo le do banco primario (o que entra no cache nao pode vir de uma replica atrasada).
+     */
+    public Map<String, Object> buscarMes(Long usuarioId, int ano, int mes, Supplier<Map<String, Object>> carregar) {
+        return meses.get(new ChaveMes(usuarioId, ano, mes), chave -> RoteamentoDataSource.noPrimario(carregar));
+    }
+
+    /**
+     * Totais dos investimentos do usuario. Se nao estiverem no cache, calcula com "carregar"
+     * (no banco primario) e guarda.
+     */
+    public Map<String, Object> buscarInvestimentos(Long usuarioId, Supplier<Map<String, Object>> carregar) {
+        return investimentos.get(usuarioId, chave -> RoteamentoDataSource.noPrimario(carregar));
+    }
+
+    /**
+     * Rentabilidade dos investimentos do usuario. Se nao estiver no cache, calcula com "carregar"
+     * (no banco primario) e guarda ate o proximo movimento ou escrita de investimento.
+     */
+    public Map<String, Object> buscarRentabilidade(Long usuarioId, Supplier<Map<String, Object>> carregar) {
+        return rentabilidades.get(usuarioId, chave -> RoteamentoDataSource.noPrimario(carregar));
+    }
+
+    // Se os indicadores do mes ja estao no cache (nao conta como acerto ou erro nas metricas)
+    public boolean temMes(Long usuarioId, int ano, int mes) {
+        return meses.asMap().containsKey(new ChaveMes(usuarioId, ano, mes));
+    }
+
+    // Se os totais dos investimentos ja estao no cache (nao conta nas metricas)
+    public boolean temInvestimentos(Long usuarioId) {
+        return investimentos.asMap().containsKey(usuarioId);
+    }
+
+    // Remove os indicadores do mes da data (despesa ou receita gravada)
+    public void invalidarMes(Long usuarioId, LocalDate data) {
+        invalidarMes(usuarioId, data.getYear(), data.getMonthValue());
+    }
+
+    // Remove os indicadores de um mes do usuario
+    public void invalidarMes(Long usuarioId, int ano, int mes) {
+        ChaveMes chave = new ChaveMes(usuarioId, ano, mes);
+        depoisDoCommit(() -> meses.invalidate(chave));
+    }
+
+    // Remove os indicadores de todos os meses do usuario (recorrencias valem para varios meses)
+    public void invalidarMesesDoUsuario(Long usuarioId) {
+        depoisDoCommit(() -> meses.asMap().keySet().removeIf(chave -> chave.usuarioId().equals(usuarioId)));
+    }
+
+    // Remove os totais e a rentabilidade dos investimentos do usuario (valem para todos os meses)
+    public void invalidarInvestimentos(Long usuarioId) {
+        depoisDoCommit(() -> {
+            investimentos.invalidate(usuarioId);
+            rentabilidades.invalidate(usuarioId);
+        });
+    }
+
+    /**
+     * Roda a remocao depois do commit da transacao atual (ou na hora, se nao houver transacao).
+     * Se removesse antes do commit, uma leitura no meio poderia guardar o valor antigo de novo.
+     */
+    private void depoisDoCommit(Runnable remocao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remocao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remocao.run();
+            }
+        });
+    }
+
+    // Estimativa do tamanho da entrada em memoria: o mapa e cada item das listas
+    // (categorias de gasto, ou tipos e investimentos da rentabilidade)
+    private static int estimarBytes(Map<String, Object> valor) {
+        int quantidade = 0;
+        for (String lista : LISTAS) {
+            if (valor.get(lista) instanceof List<?> itens) {
+                quantidade += itens.size();
+            }
+        }
+        return 600 + quantidade * 250;
+    }
+}
@@ -1,30 +1,44 @@
 package com.financeiro.service;
 
-import com.financeiro.model.Despesa;
-import com.financeiro.model.Investimento;
-import com.financeiro.model.Receita;
-import com.financeiro.repository.DespesaRepository;
+import com.financeiro.config.ContadorLinhasFilter;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.ResumoMensal;
 import com.financeiro.repository.InvestimentoRepository;
-import com.financeiro.repository.ReceitaRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service do Dashboard - calcula todos os indicadores financeiros do mes.
  * Retorna um Map com os dados para o frontend montar os graficos e KPIs.
  */
 @Service
+@Timed("financeiro.service")
 public class DashboardService {
 
     @Autowired
-    private ReceitaRepository receitaRepository;
+    private ResumoMensalService resumoMensalService;
 
     @Autowired
-    private DespesaRepository despesaRepository;
+    private RecorrenciaService recorrenciaService;
 
     @Autowired
     private InvestimentoRepository investimentoRepository;
@@ -32,131 +46,226 @@ public class DashboardService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Se as consultas do mes e dos investimentos rodam ao mesmo tempo quando nenhuma esta no cache
+    @Value("${dashboard.consultas.paralelas:true}")
+    private boolean consultasParalelas;
+
+    // Threads para as consultas em paralelo (cada uma usa uma conexao do pool enquanto roda)
+    @Value("${dashboard.consultas.threads:4}")
+    private int threadsConsultas;
+
+    private ExecutorService consultas;
+
+    // Transacao somente leitura dos investimentos (roda tanto na thread do pool quanto na da requisicao)
+    private TransactionTemplate leitura;
+
+    /**
+     * Pool limitado para as consultas em paralelo. Com a fila cheia a consulta roda
+     * na propria thread da requisicao (fica sequencial, mas nao falha).
+     */
+    @PostConstruct
+    public void init() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadsConsultas, threadsConsultas,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threadsConsultas * 25),
+                new CustomizableThreadFactory("dashboard-consulta-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        consultas = ExecutorServiceMetrics.monitor(meterRegistry, executor, "dashboard.consultas");
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        consultas.shutdown();
+    }
+
     /**
      * Calcula todos os indicadores do dashboard para o mes/ano informado.
+     * Os indicadores do mes e os totais dos investimentos ficam no DashboardCache
+     * ate alguma escrita mudar o mes (ou os investimentos) do usuario.
+     *
+     * As duas partes sao independentes: quando nenhuma esta no cache, os investimentos
+     * sao lidos em outra thread (com a propria conexao) enquanto esta le o mes, e a
+     * latencia fica a da consulta mais lenta em vez da soma das duas.
+     * Sem transacao propria: o mes le pelo ResumoMensalService (readOnly) e os investimentos
+     * abrem a sua transacao somente leitura em calcularInvestimentos.
      */
     public Map<String, Object> getDashboard(int mes, int ano) {
+        // O usuario vem do SecurityContext da thread da requisicao: resolve antes de dividir
         Long usuarioId = usuarioService.getUsuarioLogadoId();
-        Map<String, Object> dashboard = new LinkedHashMap<>();
 
-        // Define o periodo do mes
-        LocalDate inicio = LocalDate.of(ano, mes, 1);
-        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        CompletableFuture<Map<String, Object>> investimentos = null;
+        if (consultasParalelas && !dashboardCache.temMes(usuarioId, ano, mes)
+                && !dashboardCache.temInvestimentos(usuarioId)) {
+            investimentos = CompletableFuture.supplyAsync(ContadorLinhasFilter.naRequisicaoAtual(
+                    () -> dashboardCache.buscarInvestimentos(usuarioId, () -> calcularInvestimentos(usuarioId))),
+                    consultas);
+        }
+
+        Map<String, Object> dashboard = new LinkedHashMap<>(
+                dashboardCache.buscarMes(usuarioId, ano, mes, () -> calcularMes(usuarioId, ano, mes)));
+        dashboard.putAll(investimentos != null
+                ? juntar(investimentos)
+                : dashboardCache.buscarInvestimentos(usuarioId, () -> calcularInvestimentos(usuarioId)));
+        return dashboard;
+    }
 
-        // Busca receitas e despesas do mes
-        List<Receita> receitas = receitaRepository
-                .findByUsuarioIdAndDataBetween(usuarioId, inicio, fim);
-        List<Despesa> despesas = despesaRepository
-                .findByUsuarioIdAndDataBetween(usuarioId, inicio, fim);
+    // Espera a consulta da outra thread e repassa o erro original dela
+    private static <T> T juntar(CompletableFuture<T> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Indicadores do mes a partir do resumo mensal pre-calculado (poucas linhas por mes),
+     * entao o custo nao depende de quantas despesas e receitas o mes tem.
+     */
+    private Map<String, Object> calcularMes(Long usuarioId, int ano, int mes) {
+        Map<String, Object> dashboard = new LinkedHashMap<>();
 
-        // Busca todos os investimentos do usuario
-        List<Investimento> investimentos = investimentoRepository
-                .findByUsuarioId(usuarioId);
+        // Resumo do mes: totais de receitas e despesas por categoria/tipo/status
+        List<ResumoMensal> resumo = resumoMensalService.buscar(usuarioId, ano, mes);
 
         // --- Calculos basicos ---
 
+        // Soma as linhas do resumo em uma unica passada (em centavos)
+        long totalReceitas = 0;
+        DashboardAccumulator acumulador = new DashboardAccumulator();
+        for (ResumoMensal linha : resumo) {
+            if (ResumoMensalService.RECEITA.equals(linha.getLancamento())) {
+                totalReceitas += linha.getTotal();
+            } else {
+                acumulador.adicionar(linha);
+            }
+        }
+
         // Total de receitas do mes
-        double totalReceitas = receitas.stream()
-                .mapToDouble(r -> r.getValor() != null ? r.getValor() : 0)
-                .sum();
-        dashboard.put("totalReceitas", totalReceitas);
+        dashboard.put("totalReceitas", Dinheiro.deCentavos(totalReceitas));
 
         // Total de despesas do mes
-        double totalDespesas = despesas.stream()
-                .mapToDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                .sum();
-        dashboard.put("totalDespesas", totalDespesas);
+        long totalDespesas = acumulador.getTotal();
+        dashboard.put("totalDespesas", Dinheiro.deCentavos(totalDespesas));
 
         // Saldo do mes (receitas - despesas)
-        double saldo = totalReceitas - totalDespesas;
-        dashboard.put("saldo", saldo);
+        dashboard.put("saldo", Dinheiro.deCentavos(totalReceitas - totalDespesas));
 
         // Percentual de gastos (despesas / receitas * 100)
-        double percentualGastos = totalReceitas > 0
-                ? (totalDespesas / totalReceitas) * 100
-                : 0;
-        dashboard.put("percentualGastos", Math.round(percentualGastos * 100.0) / 100.0);
+        dashboard.put("percentualGastos", DashboardAccumulator.percentual(totalDespesas, totalReceitas));
 
         // Percentual investido (despesas na categoria "Investimentos" / receitas * 100)
-        double gastoInvestimentos = despesas.stream()
-                .filter(d -> "Investimentos".equalsIgnoreCase(d.getCategoria()))
-                .mapToDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                .sum();
-        double percentualInvestido = totalReceitas > 0
-                ? (gastoInvestimentos / totalReceitas) * 100
-                : 0;
-        dashboard.put("percentualInvestido", Math.round(percentualInvestido * 100.0) / 100.0);
+        dashboard.put("percentualInvestido",
+                DashboardAccumulator.percentual(acumulador.getInvestimentos(), totalReceitas));
 
         // --- Gastos por categoria ---
 
-        // Agrupa despesas por categoria e calcula valor e percentual
-        List<Map<String, Object>> gastosPorCategoria = new ArrayList<>();
-        Map<String, Double> categoriasMap = despesas.stream()
-                .collect(Collectors.groupingBy(
-                        Despesa::getCategoria,
-                        Collectors.summingDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                ));
-
-        for (Map.Entry<String, Double> entry : categoriasMap.entrySet()) {
-            Map<String, Object> categoria = new HashMap<>();
-            categoria.put("categoria", entry.getKey());
-            categoria.put("valor", entry.getValue());
-            double percentual = totalDespesas > 0
-                    ? (entry.getValue() / totalDespesas) * 100
-                    : 0;
-            categoria.put("percentual", Math.round(percentual * 100.0) / 100.0);
-            gastosPorCategoria.add(categoria);
-        }
+        // Valor e percentual de cada categoria, ordenado por valor (maior primeiro)
+        dashboard.put("gastosPorCategoria", Collections.unmodifiableList(acumulador.getGastosPorCategoria()));
 
-        // Ordena por valor (maior primeiro)
-        gastosPorCategoria.sort((a, b) ->
-                Double.compare((Double) b.get("valor"), (Double) a.get("valor")));
-        dashboard.put("gastosPorCategoria", gastosPorCategoria);
+        // --- Despesas pendentes ---
+
+        dashboard.put("despesasPendentes", Dinheiro.deCentavos(acumulador.getPendentes()));
+
+        // --- Despesas fixas e variaveis (para regra 50/30/20) ---
 
-        // --- Investimentos ---
+        dashboard.put("despesasFixas", Dinheiro.deCentavos(acumulador.getFixas()));
+        dashboard.put("despesasVariaveis", Dinheiro.deCentavos(acumulador.getVariaveis()));
+
+        // --- Fixos previstos (recorrencias que o job ainda nao gerou no mes) ---
+
+        RecorrenciaService.FixosPrevistos previstos = recorrenciaService.previstos(usuarioId, YearMonth.of(ano, mes));
+        dashboard.put("despesasFixasPrevistas", Dinheiro.deCentavos(previstos.despesas()));
+        dashboard.put("receitasFixasPrevistas", Dinheiro.deCentavos(previstos.receitas()));
+        // Saldo do mes contando os fixos que ainda vao entrar e sair
+        dashboard.put("saldoPrevisto", Dinheiro.deCentavos(
+                totalReceitas + previstos.receitas() - totalDespesas - previstos.despesas()));
+
+        // O mapa fica no cache e eh compartilhado entre requisicoes
+        return Collections.unmodifiableMap(dashboard);
+    }
+
+    /**
+     * Totais dos investimentos ativos do usuario (iguais em todos os meses).
+     * A query do repository nao tem transacao propria e esta thread pode ser a do pool
+     * (sem a transacao da requisicao), entao abre uma somente leitura aqui.
+     */
+    private Map<String, Object> calcularInvestimentos(Long usuarioId) {
+        Map<String, Object> investimentos = new LinkedHashMap<>();
+        InvestimentoRepository.TotalInvestimento totaisInvestimentos = leitura.execute(status ->
+                investimentoRepository.somarAtivos(usuarioId));
 
         // Total investido (soma de todos os investimentos ativos)
-        double totalInvestido = investimentos.stream()
-                .filter(i -> "Ativo".equalsIgnoreCase(i.getStatus()))
-                .mapToDouble(i -> i.getValorInvestido() != null ? i.getValorInvestido() : 0)
-                .sum();
-        dashboard.put("totalInvestido", totalInvestido);
-
-        // Patrimonio atual (valor investido + rentabilidade real)
-        double patrimonioAtual = investimentos.stream()
-                .filter(i -> "Ativo".equalsIgnoreCase(i.getStatus()))
-                .mapToDouble(i -> {
-                    double valorInv = i.getValorInvestido() != null ? i.getValorInvestido() : 0;
-                    double rentReal = i.getRentabilidadeReal() != null
-                            ? i.getRentabilidadeReal() : 0;
-                    return valorInv * (1 + rentReal / 100);
-                })
-                .sum();
-        dashboard.put("patrimonioAtual", Math.round(patrimonioAtual * 100.0) / 100.0);
+        long totalInvestido = totaisInvestimentos != null && totaisInvestimentos.getTotalInvestido() != null
+                ? totaisInvestimentos.getTotalInvestido() : 0;
+        investimentos.put("totalInvestido", Dinheiro.deCentavos(totalInvestido));
 
-        // --- Despesas pendentes ---
+        // Patrimonio atual (valor investido + rentabilidade real, ja arredondado no banco)
+        long patrimonioAtual = totaisInvestimentos != null && totaisInvestimentos.getPatrimonio() != null
+                ? totaisInvestimentos.getPatrimonio() : 0;
+        investimentos.put("patrimonioAtual", Dinheiro.deCentavos(patrimonioAtual));
 
-        double despesasPendentes = despesas.stream()
-                .filter(d -> "Pendente".equalsIgnoreCase(d.getStatus()))
-                .mapToDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                .sum();
-        dashboard.put("despesasPendentes", despesasPendentes);
+        return Collections.unmodifiableMap(investimentos);
+    }
 
-        // --- Despesas fixas e variaveis (para regra 50/30/20) ---
+    /**
+     * Calcula a tendencia mes a mes entre "de" e "ate" (inclusive):
+     * receitas, despesas, saldo e gastos por categoria de cada mes.
+     * Usa uma unica query no resumo mensal para o periodo todo.
+     * Meses sem lancamentos aparecem com tudo zerado.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTendencia(YearMonth de, YearMonth ate) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        List<ResumoMensal> resumo = resumoMensalService.buscarPeriodo(usuarioId, de, ate);
 
-        double despesasFixas = despesas.stream()
-                .filter(d -> "Fixa".equalsIgnoreCase(d.getTipo()))
-                .mapToDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                .sum();
-        dashboard.put("despesasFixas", despesasFixas);
+        // As linhas vem ordenadas por ano/mes; percorre junto com os meses do periodo
+        List<Map<String, Object>> tendencia = new ArrayList<>();
+        int posicao = 0;
+        for (YearMonth mes = de; !mes.isAfter(ate); mes = mes.plusMonths(1)) {
+            long totalReceitas = 0;
+            DashboardAccumulator acumulador = new DashboardAccumulator();
 
-        double despesasVariaveis = despesas.stream()
-                .filter(d -> "Variavel".equalsIgnoreCase(d.getTipo()) || "Variável".equalsIgnoreCase(d.getTipo()))
-                .filter(d -> !"Investimentos".equalsIgnoreCase(d.getCategoria()))
-                .mapToDouble(d -> d.getValor() != null ? d.getValor() : 0)
-                .sum();
-        dashboard.put("despesasVariaveis", despesasVariaveis);
+            while (posicao < resumo.size()
+                    && resumo.get(posicao).getAno() == mes.getYear()
+                    && resumo.get(posicao).getMes() == mes.getMonthValue()) {
+                ResumoMensal linha = resumo.get(posicao++);
+                if (ResumoMensalService.RECEITA.equals(linha.getLancamento())) {
+                    totalReceitas += linha.getTotal();
+                } else {
+                    acumulador.adicionar(linha);
+                }
+            }
 
-        return dashboard;
+            Map<String, Object> dadosMes = new LinkedHashMap<>();
+            dadosMes.put("mes", mes.toString());
+            dadosMes.put("totalReceitas", Dinheiro.deCentavos(totalReceitas));
+            dadosMes.put("totalDespesas", Dinheiro.deCentavos(acumulador.getTotal()));
+            dadosMes.put("saldo", Dinheiro.deCentavos(totalReceitas - acumulador.getTotal()));
+            dadosMes.put("gastosPorCategoria", acumulador.getGastosPorCategoria());
+            tendencia.add(dadosMes);
+        }
+        return tendencia;
+    }
+
+    /**
+     * Recalcula do zero o resumo do mes do usuario logado
+     * (corrige diferencas acumuladas nas somas incrementais).
+     */
+    public void recalcularResumo(int mes, int ano) {
+        resumoMensalService.recalcular(usuarioService.getUsuarioLogadoId(), ano, mes);
     }
 }
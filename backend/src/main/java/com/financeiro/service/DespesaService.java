@@ -1,19 +1,35 @@
 package com.financeiro.service;
 
+import com.financeiro.model.CategoriaDespesa;
 import com.financeiro.model.Despesa;
+import com.financeiro.model.FormaPagamento;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
 import com.financeiro.repository.DespesaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service de Despesa - logica de negocio para despesas.
  * Todas as operacoes filtram pelo usuario logado.
  */
 @Service
+@Timed("financeiro.service")
 public class DespesaService {
 
     @Autowired
@@ -22,9 +38,23 @@ public class DespesaService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Quantas linhas o Hibernate manda por lote JDBC (hibernate.jdbc.batch_size)
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int tamanhoLoteJdbc;
+
+    // Maximo de linhas aceitas em uma importacao
+    private static final int LIMITE_IMPORTACAO = 100000;
+
     /**
      * Lista despesas do usuario logado, filtradas por mes e ano.
      */
+    @Transactional(readOnly = true)
     public List<Despesa> listar(int mes, int ano) {
         Long usuarioId = usuarioService.getUsuarioLogadoId();
         LocalDate inicio = LocalDate.of(ano, mes, 1);
@@ -32,9 +62,41 @@ public class DespesaService {
         return despesaRepository.findByUsuarioIdAndDataBetween(usuarioId, inicio, fim);
     }
 
+    /**
+     * Lista uma pagina de despesas do mes (paginacao por cursor).
+     * Retorna ate "limite" despesas com id maior que "depoisDe", em ordem de id.
+     */
+    @Transactional(readOnly = true)
+    public List<Despesa> listarPagina(int mes, int ano, long depoisDe, int limite) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        LocalDate inicio = LocalDate.of(ano, mes, 1);
+        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        return despesaRepository.findByUsuarioIdAndDataBetweenAndIdGreaterThanOrderByIdAsc(
+                usuarioId, inicio, fim, depoisDe, Limit.of(limite));
+    }
+
+    /**
+     * Percorre as despesas do mes uma a uma, sem montar a lista inteira em memoria.
+     * Cada despesa eh tirada do contexto do JPA depois de enviada ao consumidor,
+     * entao o uso de memoria nao cresce com a quantidade de linhas.
+     */
+    @Transactional(readOnly = true)
+    public void exportar(int mes, int ano, Consumer<Despesa> consumidor) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        LocalDate inicio = LocalDate.of(ano, mes, 1);
+        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        try (Stream<Despesa> despesas = despesaRepository.streamPorPeriodo(usuarioId, inicio, fim)) {
+            despesas.forEach(despesa -> {
+                consumidor.accept(despesa);
+                entityManager.detach(despesa);
+            });
+        }
+    }
+
     /**
      * Busca uma despesa por ID (verificando se pertence ao usuario).
      */
+    @Transactional(readOnly = true)
     public Despesa buscarPorId(Long id) {
         Despesa despesa = despesaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Despesa nao encontrada"));
@@ -52,37 +114,207 @@ public class DespesaService {
     @Transactional
     public Despesa salvar(Despesa despesa) {
         despesa.setUsuarioId(usuarioService.getUsuarioLogadoId());
-        return despesaRepository.save(despesa);
+        Despesa salva = despesaRepository.save(despesa);
+        resumoMensalService.registrarDespesa(salva, 1);
+        usuarioService.incrementarVersaoDados(salva.getUsuarioId());
+        return salva;
     }
 
     /**
-     * Atualiza uma despesa existente.
+     * Importa varias despesas de uma vez (lista JSON).
+     * Valida todas as linhas, insere as validas em lotes JDBC e devolve
+     * quantas foram inseridas e o erro de cada linha recusada (linha 1 = primeiro item).
      */
     @Transactional
-    public Despesa atualizar(Long id, Despesa despesaAtualizada) {
-        Despesa despesa = buscarPorId(id);
+    public Map<String, Object> importar(List<Despesa> despesas) {
+        List<Integer> numeros = new ArrayList<>(despesas.size());
+        for (int i = 1; i <= despesas.size(); i++) {
+            numeros.add(i);
+        }
+        return inserirEmLote(despesas, numeros, new ArrayList<>());
+    }
+
+    /**
+     * Importa varias despesas a partir de um CSV com cabecalho
+     * (data, descricao, categoria, tipo, formaPagamento, valor, status). Os erros apontam a linha do arquivo.
+     */
+    @Transactional
+    public Map<String, Object> importarCsv(String csv) {
+        List<Despesa> despesas = new ArrayList<>();
+        List<Integer> numeros = new ArrayList<>();
+        List<Map<String, Object>> erros = new ArrayList<>();
+
+        for (LeitorCsv.Linha linha : LeitorCsv.ler(csv)) {
+            try {
+                Despesa despesa = new Despesa();
+                despesa.setData(LeitorCsv.lerData(linha.get("data")));
+                despesa.setDescricao(linha.get("descricao"));
+                despesa.setCategoria(CategoriaDespesa.deTexto(linha.get("categoria")));
+                despesa.setTipo(TipoLancamento.deTexto(linha.get("tipo")));
+                despesa.setFormaPagamento(FormaPagamento.deTexto(linha.get("formaPagamento")));
+                despesa.setValor(LeitorCsv.lerValor(linha.get("valor")));
+                despesa.setStatus(StatusDespesa.deTexto(linha.get("status")));
+                despesas.add(despesa);
+                numeros.add(linha.numero());
+            } catch (RuntimeException e) {
+                erros.add(erroDaLinha(linha.numero(), "Formato invalido: " + e.getMessage()));
+            }
+        }
+        return inserirEmLote(despesas, numeros, erros);
+    }
+
+    /**
+     * Valida as despesas numa passada so e insere as validas com persist + flush
+     * a cada lote JDBC. O clear depois de cada flush evita que o contexto do JPA
+     * cresca com o tamanho da importacao.
+     */
+    private Map<String, Object> inserirEmLote(List<Despesa> despesas, List<Integer> numeros,
+                                              List<Map<String, Object>> erros) {
+        if (despesas.size() + erros.size() > LIMITE_IMPORTACAO) {
+            throw new RuntimeException("A importacao aceita no maximo " + LIMITE_IMPORTACAO + " linhas");
+        }
+
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        List<Despesa> validas = new ArrayList<>(despesas.size());
+
+        for (int i = 0; i < despesas.size(); i++) {
+            Despesa despesa = despesas.get(i);
+            if (despesa == null) {
+                erros.add(erroDaLinha(numeros.get(i), "Linha vazia"));
+                continue;
+            }
+            if (despesa.getValor() == null || !despesa.getValor().positivo()) {
+                erros.add(erroDaLinha(numeros.get(i), "Valor deve ser maior que zero"));
+                continue;
+            }
+            if (despesa.getData() == null) {
+                erros.add(erroDaLinha(numeros.get(i), "Data eh obrigatoria"));
+                continue;
+            }
+
+            despesa.setId(null);
+            despesa.setUsuarioId(usuarioId);
+            entityManager.persist(despesa);
+            validas.add(despesa);
+
+            if (validas.size() % tamanhoLoteJdbc == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Atualiza o resumo mensal com um UPSERT por grupo (e nao por linha)
+        resumoMensalService.registrarDespesas(validas, 1);
+        if (!validas.isEmpty()) {
+            usuarioService.incrementarVersaoDados(usuarioId);
+        }
+
+        erros.sort(Comparator.comparing(erro -> (Integer) erro.get("linha")));
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("inseridas", validas.size());
+        resultado.put("recusadas", erros.size());
+        resultado.put("erros", erros);
+        return resultado;
+    }
 
-        if (despesaAtualizada.getValor() != null && despesaAtualizada.getValor() <= 0) {
+    private Map<String, Object> erroDaLinha(int linha, String mensagem) {
+        Map<String, Object> erro = new LinkedHashMap<>();
+        erro.put("linha", linha);
+        erro.put("erro", mensagem);
+        return erro;
+    }
+
+    /**
+     * Atualiza uma despesa existente (so os campos preenchidos).
+     * Confere o dono e grava em um unico UPDATE, sem carregar a despesa antes.
+     */
+    @Transactional
+    public Despesa atualizar(Long id, Despesa despesaAtualizada) {
+        if (despesaAtualizada.getValor() != null && !despesaAtualizada.getValor().positivo()) {
             throw new RuntimeException("Valor deve ser maior que zero");
         }
 
-        if (despesaAtualizada.getData() != null) despesa.setData(despesaAtualizada.getData());
-        if (despesaAtualizada.getDescricao() != null) despesa.setDescricao(despesaAtualizada.getDescricao());
-        if (despesaAtualizada.getCategoria() != null) despesa.setCategoria(despesaAtualizada.getCategoria());
-        if (despesaAtualizada.getTipo() != null) despesa.setTipo(despesaAtualizada.getTipo());
-        if (despesaAtualizada.getFormaPagamento() != null) despesa.setFormaPagamento(despesaAtualizada.getFormaPagamento());
-        if (despesaAtualizada.getValor() != null) despesa.setValor(despesaAtualizada.getValor());
-        if (despesaAtualizada.getStatus() != null) despesa.setStatus(despesaAtualizada.getStatus());
+        DespesaRepository.DespesaAlterada alterada = despesaRepository
+                .atualizarDoUsuario(id, usuarioService.getUsuarioLogadoId(), despesaAtualizada)
+                .orElseThrow(() -> new RuntimeException("Despesa nao encontrada"));
 
-        return despesaRepository.save(despesa);
+        // Tira os valores antigos do resumo e soma os novos
+        Despesa atualizada = alterada.despesa();
+        resumoMensalService.registrarDespesa(alterada.anterior(), -1);
+        resumoMensalService.registrarDespesa(atualizada, 1);
+        usuarioService.incrementarVersaoDados(atualizada.getUsuarioId());
+        return atualizada;
     }
 
     /**
-     * Deleta uma despesa por ID.
+     * Deleta uma despesa por ID (um unico DELETE, que ja confere o dono).
      */
     @Transactional
     public void deletar(Long id) {
-        buscarPorId(id);
-        despesaRepository.deleteById(id);
+        Despesa despesa = despesaRepository.deletarDoUsuario(id, usuarioService.getUsuarioLogadoId())
+                .orElseThrow(() -> new RuntimeException("Despesa nao encontrada"));
+        resumoMensalService.registrarDespesa(despesa, -1);
+        usuarioService.incrementarVersaoDados(despesa.getUsuarioId());
+    }
+
+    // --- Operacoes em lote: um unico UPDATE/DELETE e um UPSERT no resumo por grupo ---
+
+    /**
+     * Marca as despesas do usuario com esses ids como "Pago".
+     * Retorna quantas mudaram (ids de outros usuarios ou ja pagos sao ignorados).
+     */
+    @Transactional
+    public int marcarComoPagas(List<Long> ids) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        return registrarAlteradas(usuarioId,
+                despesaRepository.alterarStatusDoUsuario(usuarioId, ids, StatusDespesa.PAGO.getCodigo()));
+    }
+
+    /**
+     * Muda para "categoria" todas as despesas do usuario cuja descricao contem o texto
+     * (sem diferenciar maiusculas). Retorna quantas mudaram.
+     */
+    @Transactional
+    public int recategorizar(String descricao, CategoriaDespesa categoria) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        return registrarAlteradas(usuarioId,
+                despesaRepository.recategorizarDoUsuario(usuarioId, padraoContem(descricao), categoria.getCodigo()));
+    }
+
+    /**
+     * Deleta as despesas do usuario com esses ids. Retorna quantas foram apagadas.
+     */
+    @Transactional
+    public int deletarVarias(List<Long> ids) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        List<Despesa> apagadas = despesaRepository.deletarVariasDoUsuario(usuarioId, ids);
+        if (!apagadas.isEmpty()) {
+            resumoMensalService.registrarDespesas(apagadas, -1);
+            usuarioService.incrementarVersaoDados(usuarioId);
+        }
+        return apagadas.size();
+    }
+
+    // Move as linhas alteradas no resumo mensal (tira o valor de antes e soma o atual)
+    private int registrarAlteradas(Long usuarioId, List<DespesaRepository.DespesaAlterada> alteradas) {
+        if (alteradas.isEmpty()) {
+            return 0;
+        }
+        List<Despesa> anteriores = new ArrayList<>(alteradas.size());
+        List<Despesa> atuais = new ArrayList<>(alteradas.size());
+        for (DespesaRepository.DespesaAlterada alterada : alteradas) {
+            anteriores.add(alterada.anterior());
+            atuais.add(alterada.despesa());
+        }
+        resumoMensalService.alterarDespesas(anteriores, atuais);
+        usuarioService.incrementarVersaoDados(usuarioId);
+        return alteradas.size();
+    }
+
+    // Padrao do LIKE para "contem o texto" (% e _ digitados valem como texto)
+    private static String padraoContem(String texto) {
+        return "%" + texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
     }
 }
@@ -1,37 +1,74 @@
 package com.financeiro.service;
 
+import com.financeiro.model.Dinheiro;
 import com.financeiro.model.Investimento;
+import com.financeiro.model.MovimentoInvestimento;
+import com.financeiro.model.Opcao;
+import com.financeiro.model.TipoMovimento;
 import com.financeiro.repository.InvestimentoRepository;
+import com.financeiro.repository.MovimentoInvestimentoRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Service de Investimento - logica de negocio para investimentos.
+ * Service de Investimento - logica de negocio para investimentos e o historico
+ * de movimentos (aportes, resgates e avaliacoes) de cada um.
  * Todas as operacoes filtram pelo usuario logado.
+ *
+ * Cada movimento recalcula o valor investido (aportes - resgates) e a rentabilidade
+ * real do investimento a partir da ultima avaliacao, entao o dashboard e o
+ * planejamento continuam usando esses dois campos.
  */
 @Service
+@Timed("financeiro.service")
 public class InvestimentoService {
 
     @Autowired
     private InvestimentoRepository investimentoRepository;
 
+    @Autowired
+    private MovimentoInvestimentoRepository movimentoRepository;
+
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private DashboardCache dashboardCache;
+
     /**
      * Lista todos os investimentos do usuario logado.
      */
+    @Transactional(readOnly = true)
     public List<Investimento> listar() {
         Long usuarioId = usuarioService.getUsuarioLogadoId();
         return investimentoRepository.findByUsuarioId(usuarioId);
     }
 
+    /**
+     * Lista uma pagina de investimentos do usuario logado (paginacao por cursor).
+     * Retorna ate "limite" investimentos com id maior que "depoisDe", em ordem de id.
+     */
+    @Transactional(readOnly = true)
+    public List<Investimento> listarPagina(long depoisDe, int limite) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        return investimentoRepository.findByUsuarioIdAndIdGreaterThanOrderByIdAsc(usuarioId, depoisDe, Limit.of(limite));
+    }
+
     /**
      * Busca um investimento por ID (verificando se pertence ao usuario).
      */
+    @Transactional(readOnly = true)
     public Investimento buscarPorId(Long id) {
         Investimento investimento = investimentoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Investimento nao encontrado"));
@@ -45,41 +82,328 @@ public class InvestimentoService {
 
     /**
      * Salva um novo investimento para o usuario logado.
+     * O historico comeca com um aporte do valor investido e, se a rentabilidade real
+     * foi informada, uma avaliacao com o valor de hoje (como na migracao V9).
      */
     @Transactional
     public Investimento salvar(Investimento investimento) {
         investimento.setUsuarioId(usuarioService.getUsuarioLogadoId());
-        return investimentoRepository.save(investimento);
+        Investimento salvo = investimentoRepository.save(investimento);
+
+        LocalDate inicio = salvo.getDataAporte() != null ? salvo.getDataAporte() : LocalDate.now();
+        movimentoRepository.save(new MovimentoInvestimento(null, salvo.getId(), inicio,
+                TipoMovimento.APORTE, salvo.getValorInvestido(), salvo.getUsuarioId()));
+        if (salvo.getRentabilidadeReal() != null) {
+            long centavos = salvo.getValorInvestido().centavos();
+            long atual = Math.max(0, Math.round(centavos * (1 + salvo.getRentabilidadeReal() / 100.0)));
+            LocalDate hoje = LocalDate.now();
+            movimentoRepository.save(new MovimentoInvestimento(null, salvo.getId(),
+                    inicio.isAfter(hoje) ? inicio : hoje, TipoMovimento.AVALIACAO,
+                    Dinheiro.deCentavos(atual), salvo.getUsuarioId()));
+        }
+        dashboardCache.invalidarInvestimentos(salvo.getUsuarioId());
+        usuarioService.incrementarVersaoDados(salvo.getUsuarioId());
+        return salvo;
     }
 
     /**
-     * Atualiza um investimento existente.
+     * Atualiza um investimento existente (so os campos preenchidos).
+     * Valor investido e rentabilidade real saem do historico, entao uma edicao deles
+     * (diferente do que esta gravado) vira movimentos de hoje: a diferenca do valor investido
+     * vira aporte ou resgate, e a rentabilidade informada vira uma avaliacao.
+     * Os outros campos sao gravados em um unico UPDATE que ja confere o dono.
      */
     @Transactional
     public Investimento atualizar(Long id, Investimento investimentoAtualizado) {
-        Investimento investimento = buscarPorId(id);
-
-        if (investimentoAtualizado.getValorInvestido() != null && investimentoAtualizado.getValorInvestido() <= 0) {
+        if (investimentoAtualizado.getValorInvestido() != null && !investimentoAtualizado.getValorInvestido().positivo()) {
             throw new RuntimeException("Valor investido deve ser maior que zero");
         }
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        InvestimentoRepository.Posicao posicao = travar(id, usuarioId);
+        if (registrarEdicao(id, usuarioId, posicao, investimentoAtualizado)) {
+            recalcularPosicao(id, usuarioId);
+        }
+
+        investimentoAtualizado.setValorInvestido(null);
+        investimentoAtualizado.setRentabilidadeReal(null);
+        Investimento atualizado = investimentoRepository
+                .atualizarDoUsuario(id, usuarioId, investimentoAtualizado)
+                .orElseThrow(() -> new RuntimeException("Investimento nao encontrado"));
+        dashboardCache.invalidarInvestimentos(usuarioId);
+        usuarioService.incrementarVersaoDados(usuarioId);
+        return atualizado;
+    }
 
-        if (investimentoAtualizado.getTipo() != null) investimento.setTipo(investimentoAtualizado.getTipo());
-        if (investimentoAtualizado.getDescricao() != null) investimento.setDescricao(investimentoAtualizado.getDescricao());
-        if (investimentoAtualizado.getDataAporte() != null) investimento.setDataAporte(investimentoAtualizado.getDataAporte());
-        if (investimentoAtualizado.getValorInvestido() != null) investimento.setValorInvestido(investimentoAtualizado.getValorInvestido());
-        if (investimentoAtualizado.getRentabilidadeEstimada() != null) investimento.setRentabilidadeEstimada(investimentoAtualizado.getRentabilidadeEstimada());
-        if (investimentoAtualizado.getRentabilidadeReal() != null) investimento.setRentabilidadeReal(investimentoAtualizado.getRentabilidadeReal());
-        if (investimentoAtualizado.getStatus() != null) investimento.setStatus(investimentoAtualizado.getStatus());
+    // Grava como movimentos de hoje a edicao do valor investido e da rentabilidade real.
+    // Retorna se gravou algum (a tela manda os campos mesmo sem mudar: ai nao grava nada).
+    private boolean registrarEdicao(Long id, Long usuarioId, InvestimentoRepository.Posicao posicao,
+                                    Investimento edicao) {
+        long investido = posicao.getValorInvestido() != null ? posicao.getValorInvestido() : 0;
+        long novoInvestido = edicao.getValorInvestido() != null ? edicao.getValorInvestido().centavos() : investido;
+        Double real = edicao.getRentabilidadeReal();
+        boolean mudouInvestido = novoInvestido != investido;
+        boolean mudouReal = real != null
+                && (posicao.getRentabilidadeReal() == null || Math.abs(real - posicao.getRentabilidadeReal()) > 1e-9);
+        if (!mudouInvestido && !mudouReal) {
+            return false;
+        }
 
-        return investimentoRepository.save(investimento);
+        LocalDate hoje = LocalDate.now();
+        if (mudouInvestido) {
+            long diferenca = novoInvestido - investido;
+            movimentoRepository.save(new MovimentoInvestimento(null, id, hoje,
+                    diferenca > 0 ? TipoMovimento.APORTE : TipoMovimento.RESGATE,
+                    Dinheiro.deCentavos(Math.abs(diferenca)), usuarioId));
+        }
+        // Com a rentabilidade informada, a posicao passa a valer o que a tela mostra
+        if (real != null) {
+            long atual = Math.max(0, Math.round(novoInvestido * (1 + real / 100.0)));
+            movimentoRepository.save(new MovimentoInvestimento(null, id, hoje, TipoMovimento.AVALIACAO,
+                    Dinheiro.deCentavos(atual), usuarioId));
+        }
+        return true;
     }
 
     /**
-     * Deleta um investimento por ID.
+     * Deleta um investimento por ID (um unico DELETE, que ja confere o dono) e o seu historico.
      */
     @Transactional
     public void deletar(Long id) {
-        buscarPorId(id);
-        investimentoRepository.deleteById(id);
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        if (investimentoRepository.deletarDoUsuario(id, usuarioId) == 0) {
+            throw new RuntimeException("Investimento nao encontrado");
+        }
+        movimentoRepository.deletarDoInvestimento(id, usuarioId);
+        dashboardCache.invalidarInvestimentos(usuarioId);
+        usuarioService.incrementarVersaoDados(usuarioId);
+    }
+
+    // --- Movimentos (aportes, resgates e avaliacoes) ---
+
+    /**
+     * Historico do investimento do usuario logado, em ordem de data.
+     */
+    @Transactional(readOnly = true)
+    public List<MovimentoInvestimento> listarMovimentos(Long investimentoId) {
+        Investimento investimento = buscarPorId(investimentoId);
+        return movimentoRepository.findByUsuarioIdAndInvestimentoIdOrderByDataAscIdAsc(
+                investimento.getUsuarioId(), investimentoId);
+    }
+
+    /**
+     * Registra um movimento no investimento do usuario logado (sem data, vale hoje)
+     * e recalcula o valor investido e a rentabilidade real do investimento.
+     */
+    @Transactional
+    public MovimentoInvestimento registrarMovimento(Long investimentoId, MovimentoInvestimento movimento) {
+        if (movimento.getTipo() == null) {
+            throw new RuntimeException("Tipo do movimento eh obrigatorio");
+        }
+        if (movimento.getValor() == null || movimento.getValor().centavos() < 0
+                || (movimento.getTipo() != TipoMovimento.AVALIACAO && !movimento.getValor().positivo())) {
+            throw new RuntimeException(movimento.getTipo() == TipoMovimento.AVALIACAO
+                    ? "Valor da avaliacao nao pode ser negativo"
+                    : "Valor do movimento deve ser maior que zero");
+        }
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        travar(investimentoId, usuarioId);
+
+        movimento.setId(null);
+        movimento.setInvestimentoId(investimentoId);
+        movimento.setUsuarioId(usuarioId);
+        if (movimento.getData() == null) {
+            movimento.setData(LocalDate.now());
+        }
+        MovimentoInvestimento salvo = movimentoRepository.save(movimento);
+        recalcularPosicao(investimentoId, usuarioId);
+        dashboardCache.invalidarInvestimentos(usuarioId);
+        usuarioService.incrementarVersaoDados(usuarioId);
+        return salvo;
+    }
+
+    /**
+     * Deleta um movimento do investimento (um unico DELETE, que ja confere o dono)
+     * e recalcula o valor investido e a rentabilidade real do investimento.
+     */
+    @Transactional
+    public void deletarMovimento(Long investimentoId, Long movimentoId) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        travar(investimentoId, usuarioId);
+        if (movimentoRepository.deletarDoUsuario(movimentoId, investimentoId, usuarioId) == 0) {
+            throw new RuntimeException("Movimento nao encontrado");
+        }
+        recalcularPosicao(investimentoId, usuarioId);
+        dashboardCache.invalidarInvestimentos(usuarioId);
+        usuarioService.incrementarVersaoDados(usuarioId);
+    }
+
+    // Trava o investimento do usuario ate o fim da transacao (escritas no historico em fila)
+    private InvestimentoRepository.Posicao travar(Long id, Long usuarioId) {
+        return investimentoRepository.travarDoUsuario(id, usuarioId)
+                .orElseThrow(() -> new RuntimeException("Investimento nao encontrado"));
+    }
+
+    /**
+     * Recalcula os campos do investimento a partir do historico (com o investimento travado).
+     * Valor investido = aportes - resgates (0 se nao sobrar nada investido); rentabilidade
+     * real = valor atual / valor investido - 1, ou vazia sem avaliacao ou sem valor investido.
+     */
+    private void recalcularPosicao(Long investimentoId, Long usuarioId) {
+        List<MovimentoInvestimento> movimentos = movimentoRepository
+                .findByUsuarioIdAndInvestimentoIdOrderByDataAscIdAsc(usuarioId, investimentoId);
+        CalculadoraRentabilidade.Resultado resultado = calculadora(movimentos, Map.of(investimentoId, 0), 1)
+                .calcular(sequencia(movimentos.size()), movimentos.size());
+        long liquido = Math.max(0, resultado.aportes() - resultado.resgates());
+        boolean avaliado = movimentos.stream().anyMatch(m -> m.getTipo() == TipoMovimento.AVALIACAO);
+        Double real = liquido > 0 && avaliado ? (resultado.valorAtual() - liquido) * 100.0 / liquido : null;
+        investimentoRepository.gravarPosicao(investimentoId, liquido, real);
+    }
+
+    // --- Rentabilidade (XIRR e TWR) ---
+
+    /**
+     * Rentabilidade dos investimentos do usuario logado: da carteira toda, por tipo
+     * e por investimento. Fica no DashboardCache ate o proximo movimento ou escrita
+     * de investimento do usuario.
+     */
+    public Map<String, Object> rentabilidade() {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        return dashboardCache.buscarRentabilidade(usuarioId, () -> calcularRentabilidade(usuarioId));
+    }
+
+    /**
+     * Le os investimentos e todos os movimentos do usuario (duas consultas), passa os
+     * movimentos para arrays primitivos e calcula cada grupo com a CalculadoraRentabilidade.
+     */
+    private Map<String, Object> calcularRentabilidade(Long usuarioId) {
+        List<Investimento> investimentos = investimentoRepository.findByUsuarioId(usuarioId);
+        List<MovimentoInvestimento> movimentos = movimentoRepository.findByUsuarioIdOrderByDataAscIdAsc(usuarioId);
+
+        // Indice de cada investimento e de cada tipo (tipos iguais sem acento/maiusculas juntos)
+        Map<Long, Integer> indices = new HashMap<>();
+        Map<String, Integer> indicesTipos = new LinkedHashMap<>();
+        List<String> tipos = new ArrayList<>();
+        int[] tipoDoInvestimento = new int[investimentos.size()];
+        for (int i = 0; i < investimentos.size(); i++) {
+            Investimento investimento = investimentos.get(i);
+            indices.put(investimento.getId(), i);
+            String tipo = investimento.getTipo() != null && !investimento.getTipo().isBlank()
+                    ? investimento.getTipo() : "Outros";
+            Integer indiceTipo = indicesTipos.get(Opcao.normalizar(tipo));
+            if (indiceTipo == null) {
+                indiceTipo = tipos.size();
+                indicesTipos.put(Opcao.normalizar(tipo), indiceTipo);
+                tipos.add(tipo);
+            }
+            tipoDoInvestimento[i] = indiceTipo;
+        }
+
+        CalculadoraRentabilidade calculadora = calculadora(movimentos, indices, investimentos.size());
+
+        // Posicoes dos movimentos de cada investimento e de cada tipo (continuam em ordem de data)
+        int[][] porInvestimento = new int[investimentos.size()][];
+        int[][] porTipo = new int[tipos.size()][];
+        int[] tamanhos = new int[investimentos.size()];
+        int[] tamanhosTipos = new int[tipos.size()];
+        int[] carteira = new int[movimentos.size()];
+        int tamanhoCarteira = 0;
+        for (int m = 0; m < movimentos.size(); m++) {
+            Integer indice = indices.get(movimentos.get(m).getInvestimentoId());
+            if (indice != null) {
+                tamanhos[indice]++;
+                tamanhosTipos[tipoDoInvestimento[indice]]++;
+            }
+        }
+        for (int i = 0; i < porInvestimento.length; i++) {
+            porInvestimento[i] = new int[tamanhos[i]];
+            tamanhos[i] = 0;
+        }
+        for (int t = 0; t < porTipo.length; t++) {
+            porTipo[t] = new int[tamanhosTipos[t]];
+            tamanhosTipos[t] = 0;
+        }
+        for (int m = 0; m < movimentos.size(); m++) {
+            Integer indice = indices.get(movimentos.get(m).getInvestimentoId());
+            if (indice != null) {
+                porInvestimento[indice][tamanhos[indice]++] = m;
+                int tipo = tipoDoInvestimento[indice];
+                porTipo[tipo][tamanhosTipos[tipo]++] = m;
+                carteira[tamanhoCarteira++] = m;
+            }
+        }
+
+        List<Map<String, Object>> itensTipos = new ArrayList<>(tipos.size());
+        for (int t = 0; t < tipos.size(); t++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("tipo", tipos.get(t));
+            item.putAll(resumo(calculadora.calcular(porTipo[t], tamanhosTipos[t])));
+            itensTipos.add(item);
+        }
+
+        List<Map<String, Object>> itensInvestimentos = new ArrayList<>(investimentos.size());
+        for (int i = 0; i < investimentos.size(); i++) {
+            Investimento investimento = investimentos.get(i);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("investimentoId", investimento.getId());
+            item.put("descricao", investimento.getDescricao());
+            item.put("tipo", investimento.getTipo());
+            item.put("status", investimento.getStatus());
+            item.putAll(resumo(calculadora.calcular(porInvestimento[i], tamanhos[i])));
+            itensInvestimentos.add(item);
+        }
+
+        Map<String, Object> rentabilidade = new LinkedHashMap<>();
+        rentabilidade.put("carteira", resumo(calculadora.calcular(carteira, tamanhoCarteira)));
+        rentabilidade.put("porTipo", Collections.unmodifiableList(itensTipos));
+        rentabilidade.put("porInvestimento", Collections.unmodifiableList(itensInvestimentos));
+        return Collections.unmodifiableMap(rentabilidade);
+    }
+
+    // Passa os movimentos (em ordem de data) para os arrays da calculadora
+    private static CalculadoraRentabilidade calculadora(List<MovimentoInvestimento> movimentos,
+                                                        Map<Long, Integer> indices, int quantidadeAtivos) {
+        int n = movimentos.size();
+        int[] dias = new int[n];
+        int[] ativos = new int[n];
+        long[] valores = new long[n];
+        boolean[] avaliacoes = new boolean[n];
+        for (int m = 0; m < n; m++) {
+            MovimentoInvestimento movimento = movimentos.get(m);
+            dias[m] = (int) movimento.getData().toEpochDay();
+            ativos[m] = indices.getOrDefault(movimento.getInvestimentoId(), 0);
+            long centavos = movimento.getValor() != null ? movimento.getValor().centavos() : 0;
+            valores[m] = movimento.getTipo() == TipoMovimento.RESGATE ? -centavos : centavos;
+            avaliacoes[m] = movimento.getTipo() == TipoMovimento.AVALIACAO;
+        }
+        return new CalculadoraRentabilidade(dias, ativos, valores, avaliacoes, Math.max(1, quantidadeAtivos));
+    }
+
+    // 0, 1, ..., n-1 (grupo com todos os movimentos)
+    private static int[] sequencia(int n) {
+        int[] posicoes = new int[n];
+        for (int i = 0; i < n; i++) {
+            posicoes[i] = i;
+        }
+        return posicoes;
+    }
+
+    // Totais em reais e taxas em percentual com duas casas (null quando nao da para calcular)
+    private static Map<String, Object> resumo(CalculadoraRentabilidade.Resultado resultado) {
+        boolean vazio = resultado.movimentos() == 0;
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("aportes", Dinheiro.deCentavos(resultado.aportes()));
+        resumo.put("resgates", Dinheiro.deCentavos(resultado.resgates()));
+        resumo.put("valorAtual", Dinheiro.deCentavos(resultado.valorAtual()));
+        resumo.put("lucro", Dinheiro.deCentavos(resultado.valorAtual() + resultado.resgates() - resultado.aportes()));
+        resumo.put("xirr", percentual(resultado.xirr()));
+        resumo.put("twr", percentual(resultado.twr()));
+        resumo.put("twrAnualizada", percentual(resultado.twrAnualizada()));
+        resumo.put("inicio", vazio ? null : LocalDate.ofEpochDay(resultado.primeiroDia()));
+        resumo.put("fim", vazio ? null : LocalDate.ofEpochDay(resultado.ultimoDia()));
+        return resumo;
+    }
+
+    private static Double percentual(double taxa) {
+        return Double.isFinite(taxa) ? Math.round(taxa * 10000) / 100.0 : null;
     }
 }
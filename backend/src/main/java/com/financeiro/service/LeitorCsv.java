@@ -0,0 +1,118 @@
+package com.financeiro.service;
+
+import com.financeiro.model.Dinheiro;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitor simples de CSV usado na importacao em lote.
+ * A primeira linha eh o cabecalho com o nome dos campos.
+ * Aceita separador "," ou ";" (extrato de banco brasileiro) e campos entre aspas.
+ */
+public class LeitorCsv {
+
+    private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private LeitorCsv() {
+    }
+
+    /**
+     * Uma linha do CSV: o numero da linha no arquivo e os campos pelo nome do cabecalho.
+     */
+    public record Linha(int numero, Map<String, String> campos) {
+
+        // Valor do campo (nome sem diferenciar maiusculas/minusculas), null se vazio
+        public String get(String campo) {
+            return campos.get(campo.toLowerCase());
+        }
+    }
+
+    /**
+     * Le o CSV e retorna as linhas de dados (sem o cabecalho).
+     * O nome dos campos vem do cabecalho (sem diferenciar maiusculas/minusculas).
+     * Linhas em branco sao ignoradas.
+     */
+    public static List<Linha> ler(String csv) {
+        List<Linha> linhas = new ArrayList<>();
+        if (csv == null || csv.isBlank()) {
+            return linhas;
+        }
+
+        String[] textoLinhas = csv.split("\r?\n");
+        char separador = textoLinhas[0].indexOf(';') >= 0 ? ';' : ',';
+        List<String> cabecalho = dividir(textoLinhas[0], separador);
+        for (int i = 0; i < cabecalho.size(); i++) {
+            cabecalho.set(i, cabecalho.get(i).trim().toLowerCase());
+        }
+
+        for (int i = 1; i < textoLinhas.length; i++) {
+            if (textoLinhas[i].isBlank()) {
+                continue;
+            }
+            List<String> campos = dividir(textoLinhas[i], separador);
+            Map<String, String> linha = new HashMap<>();
+            for (int c = 0; c < cabecalho.size() && c < campos.size(); c++) {
+                String valor = campos.get(c).trim();
+                linha.put(cabecalho.get(c), valor.isEmpty() ? null : valor);
+            }
+            linhas.add(new Linha(i + 1, linha));
+        }
+        return linhas;
+    }
+
+    /**
+     * Converte um valor em reais. Aceita "1234.56", "1234,56" e "1.234,56".
+     */
+    public static Dinheiro lerValor(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String valor = texto.replace("R$", "").trim();
+        if (valor.contains(",")) {
+            valor = valor.replace(".", "").replace(",", ".");
+        }
+        return Dinheiro.deReais(new BigDecimal(valor));
+    }
+
+    /**
+     * Converte uma data no formato "2026-01-31" ou "31/01/2026".
+     */
+    public static LocalDate lerData(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.contains("/") ? LocalDate.parse(texto, DATA_BR) : LocalDate.parse(texto);
+    }
+
+    // Divide uma linha pelos separadores, respeitando campos entre aspas
+    private static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
@@ -2,7 +2,9 @@ package com.financeiro.service;
 
 import com.financeiro.model.Meta;
 import com.financeiro.repository.MetaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +15,7 @@ import java.util.List;
  * Todas as operacoes filtram pelo usuario logado.
  */
 @Service
+@Timed("financeiro.service")
 public class MetaService {
 
     @Autowired
@@ -24,14 +27,26 @@ public class MetaService {
     /**
      * Lista todas as metas do usuario logado.
      */
+    @Transactional(readOnly = true)
     public List<Meta> listar() {
         Long usuarioId = usuarioService.getUsuarioLogadoId();
         return metaRepository.findByUsuarioId(usuarioId);
     }
 
+    /**
+     * Lista uma pagina de metas do usuario logado (paginacao por cursor).
+     * Retorna ate "limite" metas com id maior que "depoisDe", em ordem de id.
+     */
+    @Transactional(readOnly = true)
+    public List<Meta> listarPagina(long depoisDe, int limite) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        return metaRepository.findByUsuarioIdAndIdGreaterThanOrderByIdAsc(usuarioId, depoisDe, Limit.of(limite));
+    }
+
     /**
      * Busca uma meta por ID (verificando se pertence ao usuario).
      */
+    @Transactional(readOnly = true)
     public Meta buscarPorId(Long id) {
         Meta meta = metaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Meta nao encontrada"));
@@ -49,34 +64,36 @@ public class MetaService {
     @Transactional
     public Meta salvar(Meta meta) {
         meta.setUsuarioId(usuarioService.getUsuarioLogadoId());
-        return metaRepository.save(meta);
+        Meta salvo = metaRepository.save(meta);
+        usuarioService.incrementarVersaoDados(salvo.getUsuarioId());
+        return salvo;
     }
 
     /**
-     * Atualiza uma meta existente.
+     * Atualiza uma meta existente (so os campos preenchidos).
+     * Confere o dono e grava em um unico UPDATE, sem carregar a meta antes.
      */
     @Transactional
     public Meta atualizar(Long id, Meta metaAtualizada) {
-        Meta meta = buscarPorId(id);
-
-        if (metaAtualizada.getValorMeta() != null && metaAtualizada.getValorMeta() <= 0) {
+        if (metaAtualizada.getValorMeta() != null && !metaAtualizada.getValorMeta().positivo()) {
             throw new RuntimeException("Valor da meta deve ser maior que zero");
         }
 
-        if (metaAtualizada.getDescricao() != null) meta.setDescricao(metaAtualizada.getDescricao());
-        if (metaAtualizada.getValorMeta() != null) meta.setValorMeta(metaAtualizada.getValorMeta());
-        if (metaAtualizada.getValorAtual() != null) meta.setValorAtual(metaAtualizada.getValorAtual());
-        if (metaAtualizada.getAporteMensal() != null) meta.setAporteMensal(metaAtualizada.getAporteMensal());
-
-        return metaRepository.save(meta);
+        Meta atualizada = metaRepository.atualizarDoUsuario(id, usuarioService.getUsuarioLogadoId(), metaAtualizada)
+                .orElseThrow(() -> new RuntimeException("Meta nao encontrada"));
+        usuarioService.incrementarVersaoDados(atualizada.getUsuarioId());
+        return atualizada;
     }
 
     /**
-     * Deleta uma meta por ID.
+     * Deleta uma meta por ID (um unico DELETE, que ja confere o dono).
      */
     @Transactional
     public void deletar(Long id) {
-        buscarPorId(id);
-        metaRepository.deleteById(id);
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        if (metaRepository.deletarDoUsuario(id, usuarioId) == 0) {
+            throw new RuntimeException("Meta nao encontrada");
+        }
+        usuarioService.incrementarVersaoDados(usuarioId);
     }
 }
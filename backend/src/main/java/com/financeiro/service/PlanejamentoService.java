@@ -0,0 +1,324 @@
+package com.financeiro.service;
+
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.Investimento;
+import com.financeiro.model.Meta;
+import com.financeiro.model.Opcao;
+import com.financeiro.repository.InvestimentoRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service do Planejamento - projecao do saldo de uma meta ou da carteira do usuario,
+ * deterministica e por Monte Carlo (ver SimuladorMonteCarlo).
+ *
+ * A carteira sai dos investimentos ativos, agrupados por tipo e pesados pelo patrimonio.
+ * As simulacoes rodam num ForkJoinPool proprio; so algumas rodam ao mesmo tempo e as
+ * outras sao recusadas na hora (SobrecargaException, 429), como no pool de senhas.
+ */
+@Service
+@Timed("financeiro.service")
+public class PlanejamentoService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanejamentoService.class);
+
+    // Rentabilidade e volatilidade anuais (%) de cada tipo de investimento. A rentabilidade
+    // estimada do cadastro tem prioridade; a volatilidade sempre vem daqui (valores aproximados)
+    private static final Map<String, double[]> PREMISSAS = Map.of(
+            "cdb", new double[]{11, 1},
+            "tesourodireto", new double[]{11, 4},
+            "poupanca", new double[]{7, 0.5},
+            "acoes", new double[]{12, 25},
+            "fiis", new double[]{10, 15},
+            "cripto", new double[]{15, 70},
+            "outros", new double[]{8, 10});
+
+    // Limite de meses para calcular quando a meta eh atingida
+    private static final int LIMITE_MESES_META = 1200;
+
+    @Autowired
+    private InvestimentoRepository investimentoRepository;
+
+    @Autowired
+    private MetaService metaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Threads do pool das simulacoes (0 = uma por CPU)
+    @Value("${simulacao.threads:0}")
+    private int threads;
+
+    // Simulacoes ao mesmo tempo; passando disso a requisicao eh recusada
+    @Value("${simulacao.concorrentes:2}")
+    private int concorrentes;
+
+    // Maximo de caminhos e de caminhos x meses por simulacao
+    @Value("${simulacao.caminhos-maximo:1000000}")
+    private int caminhosMaximo;
+
+    @Value("${simulacao.passos-maximo:120000000}")
+    private long passosMaximo;
+
+    private ForkJoinPool pool;
+    private Semaphore vagas;
+
+    // Transacao somente leitura so para ler a meta e os investimentos (nao para a simulacao)
+    private TransactionTemplate leitura;
+
+    // O que a simulacao le do banco
+    private record Dados(Meta meta, List<Investimento> ativos) {
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        vagas = new Semaphore(concorrentes);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pool.shutdown();
+    }
+
+    /**
+     * Projeta o saldo mes a mes. Com "metaId", valor inicial, aporte e valor da meta
+     * vem da meta (os campos do pedido tem prioridade); sem, o valor inicial eh o
+     * patrimonio dos investimentos ativos. Com "rentabilidadeAnual" no pedido, a carteira
+     * vira uma unica classe com essa rentabilidade (e "volatilidadeAnual", padrao 0).
+     * Sem transacao propria: a meta e os investimentos sao lidos numa transacao somente
+     * leitura curta, que termina antes da simulacao (nao segura a conexao enquanto ela roda).
+     */
+    public Map<String, Object> simular(Simulacao pedido) {
+        int meses = pedido.meses() != null ? pedido.meses() : 120;
+        int caminhos = pedido.caminhos() != null ? pedido.caminhos() : 10000;
+        if (meses < 1 || meses > 600) {
+            throw new RuntimeException("Meses deve ser entre 1 e 600");
+        }
+        if (caminhos < 0 || caminhos > caminhosMaximo) {
+            throw new RuntimeException("Caminhos deve ser entre 0 e " + caminhosMaximo);
+        }
+        if ((long) caminhos * meses > passosMaximo) {
+            throw new RuntimeException("Caminhos x meses deve ser no maximo " + passosMaximo);
+        }
+
+        Dados dados = leitura.execute(status -> ler(pedido.metaId()));
+        Meta meta = dados.meta();
+        List<Investimento> ativos = dados.ativos();
+        Dinheiro valorInicial = primeiro(pedido.valorInicial(), meta != null ? meta.getValorAtual() : null);
+        if (valorInicial == null) {
+            valorInicial = Dinheiro.deCentavos(ativos.stream().mapToLong(PlanejamentoService::patrimonio).sum());
+        }
+        Dinheiro aporte = primeiro(pedido.aporteMensal(), meta != null ? meta.getAporteMensal() : null);
+        Dinheiro valorMeta = primeiro(pedido.valorMeta(), meta != null ? meta.getValorMeta() : null);
+        if (valorInicial.centavos() < 0 || (aporte != null && aporte.centavos() < 0)) {
+            throw new RuntimeException("Valor inicial e aporte nao podem ser negativos");
+        }
+        long aporteCentavos = aporte != null ? aporte.centavos() : 0;
+
+        List<Map<String, Object>> carteira = pedido.rentabilidadeAnual() != null
+                ? List.of(classe("Informada", 1, pedido.rentabilidadeAnual(),
+                        pedido.volatilidadeAnual() != null ? pedido.volatilidadeAnual() : 0))
+                : carteira(ativos);
+        SimuladorMonteCarlo simulador = simulador(carteira);
+        int[] pontos = pontos(meses);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("valorInicial", valorInicial);
+        parametros.put("aporteMensal", Dinheiro.deCentavos(aporteCentavos));
+        parametros.put("valorMeta", valorMeta);
+        parametros.put("meses", meses);
+        parametros.put("caminhos", caminhos);
+        resultado.put("parametros", parametros);
+        resultado.put("carteira", carteira);
+
+        // --- Projecao deterministica ---
+
+        double[] saldos = simulador.projetar(valorInicial.centavos(), aporteCentavos, meses);
+        Map<String, Object> deterministica = new LinkedHashMap<>();
+        deterministica.put("valorFinal", centavos(saldos[meses - 1]));
+        if (valorMeta != null) {
+            int mesesParaMeta = simulador.mesesParaMeta(valorInicial.centavos(), aporteCentavos,
+                    valorMeta.centavos(), LIMITE_MESES_META);
+            deterministica.put("mesesParaMeta", mesesParaMeta >= 0 ? mesesParaMeta : null);
+        }
+        List<Map<String, Object>> pontosDeterministica = new ArrayList<>(pontos.length);
+        for (int mes : pontos) {
+            Map<String, Object> ponto = new LinkedHashMap<>();
+            ponto.put("mes", mes);
+            ponto.put("valor", centavos(saldos[mes - 1]));
+            pontosDeterministica.add(ponto);
+        }
+        deterministica.put("pontos", pontosDeterministica);
+        resultado.put("deterministica", deterministica);
+
+        // --- Monte Carlo ---
+
+        if (caminhos > 0) {
+            long semente = pedido.semente() != null ? pedido.semente() : ThreadLocalRandom.current().nextLong();
+            parametros.put("semente", semente);
+            resultado.put("monteCarlo", monteCarlo(simulador, valorInicial.centavos(), aporteCentavos,
+                    pontos, caminhos, semente, valorMeta));
+        }
+        return resultado;
+    }
+
+    // Meta (se pedida) e investimentos ativos do usuario logado; roda dentro da transacao de leitura
+    private Dados ler(Long metaId) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        Meta meta = metaId != null ? metaService.buscarPorId(metaId) : null;
+        List<Investimento> ativos = investimentoRepository.findByUsuarioId(usuarioId).stream()
+                .filter(i -> "ATIVO".equalsIgnoreCase(i.getStatus()))
+                .toList();
+        return new Dados(meta, ativos);
+    }
+
+    private Map<String, Object> monteCarlo(SimuladorMonteCarlo simulador, long inicial, long aporte, int[] pontos,
+                                           int caminhos, long semente, Dinheiro valorMeta) {
+        if (!vagas.tryAcquire()) {
+            throw new SobrecargaException("Muitas simulacoes ao mesmo tempo, tente novamente em instantes");
+        }
+        SimuladorMonteCarlo.Resultado simulacao;
+        long inicio = System.nanoTime();
+        try {
+            simulacao = simulador.simular(inicial, aporte, pontos, caminhos, semente,
+                    valorMeta != null ? valorMeta.centavos() : Double.POSITIVE_INFINITY, pool);
+        } finally {
+            vagas.release();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Map<String, Object> monteCarlo = new LinkedHashMap<>();
+        if (valorMeta != null) {
+            monteCarlo.put("probabilidadeMeta", Math.round(simulacao.probabilidadeMeta() * 10000) / 100.0);
+        }
+        List<Map<String, Object>> bandas = new ArrayList<>(pontos.length);
+        for (int p = 0; p < pontos.length; p++) {
+            Map<String, Object> ponto = new LinkedHashMap<>();
+            ponto.put("mes", pontos[p]);
+            for (int i = 0; i < SimuladorMonteCarlo.PERCENTIS.length; i++) {
+                ponto.put("p" + SimuladorMonteCarlo.PERCENTIS[i], centavos(simulacao.bandas()[p][i]));
+            }
+            ponto.put("media", centavos(simulacao.medias()[p]));
+            bandas.add(ponto);
+        }
+        monteCarlo.put("pontos", bandas);
+        monteCarlo.put("caminhosPorSegundo", Math.round(caminhos / segundos));
+        log.atDebug()
+                .addKeyValue("caminhos", caminhos)
+                .addKeyValue("meses", pontos[pontos.length - 1])
+                .addKeyValue("duracaoMs", Math.round(segundos * 1000))
+                .log("Simulacao de Monte Carlo");
+        return monteCarlo;
+    }
+
+    // Uma classe por tipo de investimento, com peso pelo patrimonio e rentabilidade media ponderada
+    private static List<Map<String, Object>> carteira(List<Investimento> ativos) {
+        Map<String, List<Investimento>> porTipo = new LinkedHashMap<>();
+        for (Investimento investimento : ativos) {
+            String tipo = investimento.getTipo() != null ? investimento.getTipo() : "Outros";
+            porTipo.computeIfAbsent(tipo, t -> new ArrayList<>()).add(investimento);
+        }
+        long total = ativos.stream().mapToLong(PlanejamentoService::patrimonio).sum();
+
+        List<Map<String, Object>> carteira = new ArrayList<>();
+        for (Map.Entry<String, List<Investimento>> entry : porTipo.entrySet()) {
+            double[] premissa = PREMISSAS.getOrDefault(Opcao.normalizar(entry.getKey()), PREMISSAS.get("outros"));
+            long patrimonio = 0;
+            double somaRentabilidade = 0;
+            for (Investimento investimento : entry.getValue()) {
+                long valor = patrimonio(investimento);
+                patrimonio += valor;
+                somaRentabilidade += valor * (investimento.getRentabilidadeEstimada() != null
+                        ? investimento.getRentabilidadeEstimada() : premissa[0]);
+            }
+            if (patrimonio <= 0) {
+                continue;
+            }
+            carteira.add(classe(entry.getKey(), (double) patrimonio / total,
+                    somaRentabilidade / patrimonio, premissa[1]));
+        }
+        return carteira;
+    }
+
+    private static Map<String, Object> classe(String tipo, double peso, double rentabilidade, double volatilidade) {
+        if (rentabilidade <= -100 || volatilidade < 0) {
+            throw new RuntimeException("Rentabilidade deve ser maior que -100% e volatilidade nao pode ser negativa");
+        }
+        Map<String, Object> classe = new LinkedHashMap<>();
+        classe.put("tipo", tipo);
+        classe.put("peso", Math.round(peso * 10000) / 100.0);
+        classe.put("rentabilidadeAnual", Math.round(rentabilidade * 100) / 100.0);
+        classe.put("volatilidadeAnual", volatilidade);
+        return classe;
+    }
+
+    private static SimuladorMonteCarlo simulador(List<Map<String, Object>> carteira) {
+        double[] pesos = new double[carteira.size()];
+        double[] rentabilidades = new double[carteira.size()];
+        double[] volatilidades = new double[carteira.size()];
+        for (int i = 0; i < carteira.size(); i++) {
+            pesos[i] = (double) carteira.get(i).get("peso");
+            rentabilidades[i] = (double) carteira.get(i).get("rentabilidadeAnual") / 100;
+            volatilidades[i] = (double) carteira.get(i).get("volatilidadeAnual") / 100;
+        }
+        return new SimuladorMonteCarlo(pesos, rentabilidades, volatilidades);
+    }
+
+    // Meses mostrados: todos ate 5 anos, depois um por ano (e sempre o ultimo)
+    private static int[] pontos(int meses) {
+        int intervalo = meses <= 60 ? 1 : 12;
+        int quantidade = meses / intervalo + (meses % intervalo != 0 ? 1 : 0);
+        int[] pontos = new int[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            pontos[i] = Math.min((i + 1) * intervalo, meses);
+        }
+        return pontos;
+    }
+
+    // Patrimonio do investimento em centavos (valor investido + rentabilidade real), como no dashboard
+    private static long patrimonio(Investimento investimento) {
+        long investido = investimento.getValorInvestido() != null ? investimento.getValorInvestido().centavos() : 0;
+        double real = investimento.getRentabilidadeReal() != null ? investimento.getRentabilidadeReal() : 0;
+        return Math.round(investido * (1 + real / 100.0));
+    }
+
+    private static Dinheiro centavos(double valor) {
+        return Dinheiro.deCentavos(Math.round(valor));
+    }
+
+    private static Dinheiro primeiro(Dinheiro pedido, Dinheiro padrao) {
+        return pedido != null ? pedido : padrao;
+    }
+
+    /**
+     * Pedido de simulacao (todos os campos opcionais). Valores em reais; rentabilidade
+     * e volatilidade anuais em percentual (12.5 = 12.5% ao ano).
+     */
+    public record Simulacao(Long metaId, Dinheiro valorInicial, Dinheiro aporteMensal, Dinheiro valorMeta,
+                            Integer meses, Integer caminhos, Long semente,
+                            Double rentabilidadeAnual, Double volatilidadeAnual) {
+    }
+}
@@ -1,19 +1,32 @@
 package com.financeiro.service;
 
 import com.financeiro.model.Receita;
+import com.financeiro.model.TipoLancamento;
 import com.financeiro.repository.ReceitaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service de Receita - logica de negocio para receitas.
  * Todas as operacoes filtram pelo usuario logado.
  */
 @Service
+@Timed("financeiro.service")
 public class ReceitaService {
 
     @Autowired
@@ -22,9 +35,23 @@ public class ReceitaService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Quantas linhas o Hibernate manda por lote JDBC (hibernate.jdbc.batch_size)
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int tamanhoLoteJdbc;
+
+    // Maximo de linhas aceitas em uma importacao
+    private static final int LIMITE_IMPORTACAO = 100000;
+
     /**
      * Lista receitas do usuario logado, filtradas por mes e ano.
      */
+    @Transactional(readOnly = true)
     public List<Receita> listar(int mes, int ano) {
         Long usuarioId = usuarioService.getUsuarioLogadoId();
         LocalDate inicio = LocalDate.of(ano, mes, 1);
@@ -32,9 +59,41 @@ public class ReceitaService {
         return receitaRepository.findByUsuarioIdAndDataBetween(usuarioId, inicio, fim);
     }
 
+    /**
+     * Lista uma pagina de receitas do mes (paginacao por cursor).
+     * Retorna ate "limite" receitas com id maior que "depoisDe", em ordem de id.
+     */
+    @Transactional(readOnly = true)
+    public List<Receita> listarPagina(int mes, int ano, long depoisDe, int limite) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        LocalDate inicio = LocalDate.of(ano, mes, 1);
+        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        return receitaRepository.findByUsuarioIdAndDataBetweenAndIdGreaterThanOrderByIdAsc(
+                usuarioId, inicio, fim, depoisDe, Limit.of(limite));
+    }
+
+    /**
+     * Percorre as receitas do mes uma a uma, sem montar a lista inteira em memoria.
+     * Cada receita eh tirada do contexto do JPA depois de enviada ao consumidor,
+     * entao o uso de memoria nao cresce com a quantidade de linhas.
+     */
+    @Transactional(readOnly = true)
+    public void exportar(int mes, int ano, Consumer<Receita> consumidor) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        LocalDate inicio = LocalDate.of(ano, mes, 1);
+        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        try (Stream<Receita> receitas = receitaRepository.streamPorPeriodo(usuarioId, inicio, fim)) {
+            receitas.forEach(receita -> {
+                consumidor.accept(receita);
+                entityManager.detach(receita);
+            });
+        }
+    }
+
     /**
      * Busca uma receita por ID (verificando se pertence ao usuario).
      */
+    @Transactional(readOnly = true)
     public Receita buscarPorId(Long id) {
         Receita receita = receitaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Receita nao encontrada"));
@@ -53,34 +112,146 @@ public class ReceitaService {
     @Transactional
     public Receita salvar(Receita receita) {
         receita.setUsuarioId(usuarioService.getUsuarioLogadoId());
-        return receitaRepository.save(receita);
+        Receita salva = receitaRepository.save(receita);
+        resumoMensalService.registrarReceita(salva, 1);
+        usuarioService.incrementarVersaoDados(salva.getUsuarioId());
+        return salva;
     }
 
     /**
-     * Atualiza uma receita existente.
+     * Importa varias receitas de uma vez (lista JSON).
+     * Valida todas as linhas, insere as validas em lotes JDBC e devolve
+     * quantas foram inseridas e o erro de cada linha recusada (linha 1 = primeiro item).
      */
     @Transactional
-    public Receita atualizar(Long id, Receita receitaAtualizada) {
-        Receita receita = buscarPorId(id);
+    public Map<String, Object> importar(List<Receita> receitas) {
+        List<Integer> numeros = new ArrayList<>(receitas.size());
+        for (int i = 1; i <= receitas.size(); i++) {
+            numeros.add(i);
+        }
+        return inserirEmLote(receitas, numeros, new ArrayList<>());
+    }
+
+    /**
+     * Importa varias receitas a partir de um CSV com cabecalho
+     * (data, fonte, tipo, valor, observacoes). Os erros apontam a linha do arquivo.
+     */
+    @Transactional
+    public Map<String, Object> importarCsv(String csv) {
+        List<Receita> receitas = new ArrayList<>();
+        List<Integer> numeros = new ArrayList<>();
+        List<Map<String, Object>> erros = new ArrayList<>();
 
-        if (receitaAtualizada.getValor() != null && receitaAtualizada.getValor() <= 0) {
+        for (LeitorCsv.Linha linha : LeitorCsv.ler(csv)) {
+            try {
+                Receita receita = new Receita();
+                receita.setData(LeitorCsv.lerData(linha.get("data")));
+                receita.setFonte(linha.get("fonte"));
+                receita.setTipo(TipoLancamento.deTexto(linha.get("tipo")));
+                receita.setValor(LeitorCsv.lerValor(linha.get("valor")));
+                receita.setObservacoes(linha.get("observacoes"));
+                receitas.add(receita);
+                numeros.add(linha.numero());
+            } catch (RuntimeException e) {
+                erros.add(erroDaLinha(linha.numero(), "Formato invalido: " + e.getMessage()));
+            }
+        }
+        return inserirEmLote(receitas, numeros, erros);
+    }
+
+    /**
+     * Valida as receitas numa passada so e insere as validas com persist + flush
+     * a cada lote JDBC. O clear depois de cada flush evita que o contexto do JPA
+     * cresca com o tamanho da importacao.
+     */
+    private Map<String, Object> inserirEmLote(List<Receita> receitas, List<Integer> numeros,
+                                              List<Map<String, Object>> erros) {
+        if (receitas.size() + erros.size() > LIMITE_IMPORTACAO) {
+            throw new RuntimeException("A importacao aceita no maximo " + LIMITE_IMPORTACAO + " linhas");
+        }
+
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        List<Receita> validas = new ArrayList<>(receitas.size());
+
+        for (int i = 0; i < receitas.size(); i++) {
+            Receita receita = receitas.get(i);
+            if (receita == null) {
+                erros.add(erroDaLinha(numeros.get(i), "Linha vazia"));
+                continue;
+            }
+            if (receita.getValor() == null || !receita.getValor().positivo()) {
+                erros.add(erroDaLinha(numeros.get(i), "Valor deve ser maior que zero"));
+                continue;
+            }
+            if (receita.getData() == null) {
+                erros.add(erroDaLinha(numeros.get(i), "Data eh obrigatoria"));
+                continue;
+            }
+
+            receita.setId(null);
+            receita.setUsuarioId(usuarioId);
+            entityManager.persist(receita);
+            validas.add(receita);
+
+            if (validas.size() % tamanhoLoteJdbc == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Atualiza o resumo mensal com um UPSERT por grupo (e nao por linha)
+        resumoMensalService.registrarReceitas(validas);
+        if (!validas.isEmpty()) {
+            usuarioService.incrementarVersaoDados(usuarioId);
+        }
+
+        erros.sort(Comparator.comparing(erro -> (Integer) erro.get("linha")));
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("inseridas", validas.size());
+        resultado.put("recusadas", erros.size());
+        resultado.put("erros", erros);
+        return resultado;
+    }
+
+    private Map<String, Object> erroDaLinha(int linha, String mensagem) {
+        Map<String, Object> erro = new LinkedHashMap<>();
+        erro.put("linha", linha);
+        erro.put("erro", mensagem);
+        return erro;
+    }
+
+    /**
+     * Atualiza uma receita existente (data, fonte, tipo e valor so se vierem preenchidos).
+     * Confere o dono e grava em um unico UPDATE, sem carregar a receita antes.
+     */
+    @Transactional
+    public Receita atualizar(Long id, Receita receitaAtualizada) {
+        if (receitaAtualizada.getValor() != null && !receitaAtualizada.getValor().positivo()) {
             throw new RuntimeException("Valor deve ser maior que zero");
         }
 
-        if (receitaAtualizada.getData() != null) receita.setData(receitaAtualizada.getData());
-        if (receitaAtualizada.getFonte() != null) receita.setFonte(receitaAtualizada.getFonte());
-        if (receitaAtualizada.getTipo() != null) receita.setTipo(receitaAtualizada.getTipo());
-        if (receitaAtualizada.getValor() != null) receita.setValor(receitaAtualizada.getValor());
-        receita.setObservacoes(receitaAtualizada.getObservacoes());
+        ReceitaRepository.ReceitaAlterada alterada = receitaRepository
+                .atualizarDoUsuario(id, usuarioService.getUsuarioLogadoId(), receitaAtualizada)
+                .orElseThrow(() -> new RuntimeException("Receita nao encontrada"));
 
-        return receitaRepository.save(receita);
+        // Tira os valores antigos do resumo e soma os novos
+        Receita atualizada = alterada.receita();
+        resumoMensalService.registrarReceita(alterada.anterior(), -1);
+        resumoMensalService.registrarReceita(atualizada, 1);
+        usuarioService.incrementarVersaoDados(atualizada.getUsuarioId());
+        return atualizada;
     }
 
     /**
-     * Deleta uma receita por ID.
+     * Deleta uma receita por ID (um unico DELETE, que ja confere o dono).
      */
+    @Transactional
     public void deletar(Long id) {
-        buscarPorId(id); // Verifica se existe e pertence ao usuario
-        receitaRepository.deleteById(id);
+        Receita receita = receitaRepository.deletarDoUsuario(id, usuarioService.getUsuarioLogadoId())
+                .orElseThrow(() -> new RuntimeException("Receita nao encontrada"));
+        resumoMensalService.registrarReceita(receita, -1);
+        usuarioService.incrementarVersaoDados(receita.getUsuarioId());
     }
 }
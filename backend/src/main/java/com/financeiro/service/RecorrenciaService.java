@@ -0,0 +1,320 @@
+package com.financeiro.service;
+
+import com.financeiro.model.Despesa;
+import com.financeiro.model.Receita;
+import com.financeiro.model.Recorrencia;
+import com.financeiro.model.StatusDespesa;
+import com.financeiro.model.TipoLancamento;
+import com.financeiro.repository.RecorrenciaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service de Recorrencia - regras de despesas e receitas fixas (aluguel, salario...)
+ * e o job que gera os lancamentos de cada mes a partir delas.
+ *
+ * O job percorre os usuarios em blocos (em ordem de id), cada bloco na sua propria
+ * transacao curta, e grava o ultimo usuario do bloco em geracao_recorrencias. Se a
+ * execucao parar no meio, a proxima continua do ponto de parada; e cada recorrencia
+ * guarda o ultimo mes gerado, entao um bloco repetido nao duplica lancamentos.
+ */
+@Service
+@Timed("financeiro.service")
+public class RecorrenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecorrenciaService.class);
+
+    @Autowired
+    private RecorrenciaRepository recorrenciaRepository;
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Quantas linhas o Hibernate manda por lote JDBC (hibernate.jdbc.batch_size)
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int tamanhoLoteJdbc;
+
+    // Usuarios por bloco (cada bloco eh uma transacao)
+    @Value("${recorrencia.geracao.usuarios-por-bloco:500}")
+    private int usuariosPorBloco;
+
+    private TransactionTemplate transacao;
+
+    @PostConstruct
+    public void init() {
+        transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Lista todas as recorrencias do usuario logado.
+     */
+    @Transactional(readOnly = true)
+    public List<Recorrencia> listar() {
+        return recorrenciaRepository.findByUsuarioIdOrderByIdAsc(usuarioService.getUsuarioLogadoId());
+    }
+
+    /**
+     * Salva uma nova recorrencia para o usuario logado.
+     * Sem data de inicio, comeca hoje (lancamentos de dias que ja passaram nao sao gerados).
+     */
+    @Transactional
+    public Recorrencia salvar(Recorrencia recorrencia) {
+        recorrencia.setId(null);
+        recorrencia.setUltimoMesGerado(null);
+        recorrencia.setLancamento(lancamento(recorrencia.getLancamento()));
+        if (recorrencia.getInicio() == null) {
+            recorrencia.setInicio(LocalDate.now());
+        }
+        validar(recorrencia);
+        recorrencia.setUsuarioId(usuarioService.getUsuarioLogadoId());
+        Recorrencia salva = recorrenciaRepository.save(recorrencia);
+        registrarMudanca(salva.getUsuarioId());
+        return salva;
+    }
+
+    /**
+     * Atualiza uma recorrencia (so os campos preenchidos) em um unico UPDATE que ja confere o dono.
+     * Vale para os proximos meses gerados; os lancamentos ja gerados nao mudam.
+     * Para tirar o fim, mande "semFim": true.
+     */
+    @Transactional
+    public Recorrencia atualizar(Long id, Recorrencia recorrenciaAtualizada) {
+        if (Boolean.TRUE.equals(recorrenciaAtualizada.getSemFim()) && recorrenciaAtualizada.getFim() != null) {
+            throw new RuntimeException("Informe fim ou semFim, nao os dois");
+        }
+        if (recorrenciaAtualizada.getLancamento() != null) {
+            recorrenciaAtualizada.setLancamento(lancamento(recorrenciaAtualizada.getLancamento()));
+        }
+        Recorrencia atualizada = recorrenciaRepository
+                .atualizarDoUsuario(id, usuarioService.getUsuarioLogadoId(), recorrenciaAtualizada)
+                .orElseThrow(() -> new RuntimeException("Recorrencia nao encontrada"));
+        // Confere como ficou (ex: fim antes do inicio); se falhar, a transacao desfaz o UPDATE
+        validar(atualizada);
+        registrarMudanca(atualizada.getUsuarioId());
+        return atualizada;
+    }
+
+    /**
+     * Deleta uma recorrencia (os lancamentos ja gerados continuam).
+     */
+    @Transactional
+    public void deletar(Long id) {
+        Long usuarioId = usuarioService.getUsuarioLogadoId();
+        if (recorrenciaRepository.deletarDoUsuario(id, usuarioId) == 0) {
+            throw new RuntimeException("Recorrencia nao encontrada");
+        }
+        registrarMudanca(usuarioId);
+    }
+
+    /**
+     * Quanto das recorrencias do usuario ainda vai virar despesa e receita no mes,
+     * sem os lancamentos existirem: regras que valem no mes e que o job ainda nao gerou.
+     * So conta do mes atual em diante (meses passados nao sao mais gerados).
+     */
+    @Transactional(readOnly = true)
+    public FixosPrevistos previstos(Long usuarioId, YearMonth mes) {
+        if (mes.isBefore(YearMonth.now())) {
+            return new FixosPrevistos(0, 0);
+        }
+        long despesas = 0;
+        long receitas = 0;
+        for (Recorrencia recorrencia : recorrenciaRepository.findByUsuarioIdOrderByIdAsc(usuarioId)) {
+            if (!recorrencia.pendente(mes) || recorrencia.ocorrencia(mes) == null) {
+                continue;
+            }
+            if (ResumoMensalService.DESPESA.equals(recorrencia.getLancamento())) {
+                despesas += recorrencia.getValor().centavos();
+            } else {
+                receitas += recorrencia.getValor().centavos();
+            }
+        }
+        return new FixosPrevistos(despesas, receitas);
+    }
+
+    /**
+     * Job: gera os lancamentos do mes atual e do proximo de todos os usuarios,
+     * entao a despesa fixa do mes que vem ja aparece (como Pendente) antes dele comecar.
+     */
+    @Scheduled(cron = "${recorrencia.geracao.cron:0 0 2 * * *}")
+    public void gerarProximoMes() {
+        YearMonth atual = YearMonth.now();
+        gerar(atual, atual.plusMonths(1));
+    }
+
+    /**
+     * Gera os lancamentos de todas as recorrencias pendentes, de "atual" ate "ate".
+     * Sem transacao propria: cada bloco de usuarios faz commit sozinho.
+     */
+    public void gerar(YearMonth atual, YearMonth ate) {
+        LocalDate mes = ate.atDay(1);
+        long inicio = System.nanoTime();
+        transacao.executeWithoutResult(status -> recorrenciaRepository.iniciarGeracao(mes));
+
+        int blocos = 0;
+        long usuarios = 0;
+        long despesas = 0;
+        long receitas = 0;
+        Bloco bloco;
+        while ((bloco = transacao.execute(status -> gerarBloco(atual, ate))) != null) {
+            blocos++;
+            usuarios += bloco.usuarios();
+            despesas += bloco.despesas();
+            receitas += bloco.receitas();
+        }
+        log.atInfo()
+                .addKeyValue("ate", ate)
+                .addKeyValue("blocos", blocos)
+                .addKeyValue("usuarios", usuarios)
+                .addKeyValue("despesas", despesas)
+                .addKeyValue("receitas", receitas)
+                .addKeyValue("duracaoMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio))
+                .log("Recorrencias geradas");
+    }
+
+    /**
+     * Gera um bloco de usuarios a partir do ponto de parada (uma transacao).
+     * Retorna null quando nao sobrou usuario, ou quando outra instancia ja concluiu.
+     */
+    private Bloco gerarBloco(YearMonth atual, YearMonth ate) {
+        LocalDate mes = ate.atDay(1);
+        Optional<Long> pontoDeParada = recorrenciaRepository.travarPontoDeParada(mes);
+        if (pontoDeParada.isEmpty()) {
+            return null;
+        }
+        List<Long> usuarios = recorrenciaRepository.proximosUsuarios(pontoDeParada.get(), mes, usuariosPorBloco);
+        if (usuarios.isEmpty()) {
+            recorrenciaRepository.gravarPontoDeParada(mes, pontoDeParada.get(), true);
+            return null;
+        }
+        Long ultimoUsuario = usuarios.get(usuarios.size() - 1);
+        List<Recorrencia> recorrencias = recorrenciaRepository.buscarPendentes(usuarios.get(0), ultimoUsuario, mes);
+
+        List<Despesa> despesas = new ArrayList<>();
+        List<Receita> receitas = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(recorrencias.size());
+        Set<Long> alterados = new HashSet<>();
+        for (Recorrencia recorrencia : recorrencias) {
+            for (YearMonth m = primeiroMes(recorrencia, atual); !m.isAfter(ate); m = m.plusMonths(1)) {
+                LocalDate data = recorrencia.ocorrencia(m);
+                if (data == null) {
+                    continue;
+                }
+                if (ResumoMensalService.DESPESA.equals(recorrencia.getLancamento())) {
+                    despesas.add(new Despesa(null, data, recorrencia.getDescricao(), recorrencia.getCategoria(),
+                            TipoLancamento.FIXA, recorrencia.getFormaPagamento(), recorrencia.getValor(),
+                            StatusDespesa.PENDENTE, recorrencia.getUsuarioId()));
+                } else {
+                    receitas.add(new Receita(null, data, recorrencia.getDescricao(), TipoLancamento.FIXA,
+                            recorrencia.getValor(), null, recorrencia.getUsuarioId()));
+                }
+                alterados.add(recorrencia.getUsuarioId());
+            }
+            ids.add(recorrencia.getId());
+        }
+
+        // INSERTs em lotes JDBC (persist + flush a cada lote, como na importacao)
+        inserir(despesas);
+        inserir(receitas);
+        recorrenciaRepository.marcarGeradas(ids, mes);
+
+        // Resumo mensal: um lote de UPSERTs por tipo de lancamento
+        resumoMensalService.registrarDespesas(despesas, 1);
+        resumoMensalService.registrarReceitas(receitas);
+        if (!alterados.isEmpty()) {
+            usuarioService.incrementarVersaoDadosDe(alterados);
+        }
+        recorrenciaRepository.gravarPontoDeParada(mes, ultimoUsuario, false);
+        return new Bloco(usuarios.size(), despesas.size(), receitas.size());
+    }
+
+    // Primeiro mes a gerar: depois do ultimo gerado, nao antes do inicio nem do mes atual
+    private static YearMonth primeiroMes(Recorrencia recorrencia, YearMonth atual) {
+        YearMonth primeiro = YearMonth.from(recorrencia.getInicio());
+        if (recorrencia.getUltimoMesGerado() != null) {
+            YearMonth seguinte = YearMonth.from(recorrencia.getUltimoMesGerado()).plusMonths(1);
+            primeiro = seguinte.isAfter(primeiro) ? seguinte : primeiro;
+        }
+        return atual.isAfter(primeiro) ? atual : primeiro;
+    }
+
+    // O clear depois de cada flush evita que o contexto do JPA cresca com o bloco
+    private void inserir(List<?> lancamentos) {
+        for (int i = 0; i < lancamentos.size(); i++) {
+            entityManager.persist(lancamentos.get(i));
+            if ((i + 1) % tamanhoLoteJdbc == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void validar(Recorrencia recorrencia) {
+        if (recorrencia.getValor() == null || !recorrencia.getValor().positivo()) {
+            throw new RuntimeException("Valor deve ser maior que zero");
+        }
+        if (recorrencia.getDiaDoMes() == null || recorrencia.getDiaDoMes() < 1 || recorrencia.getDiaDoMes() > 31) {
+            throw new RuntimeException("Dia do mes deve ser entre 1 e 31");
+        }
+        if (recorrencia.getFim() != null && recorrencia.getFim().isBefore(recorrencia.getInicio())) {
+            throw new RuntimeException("Fim deve ser depois do inicio");
+        }
+    }
+
+    // "despesa", "Despesa"... -> "DESPESA" (o mesmo texto do resumo mensal)
+    private static String lancamento(String texto) {
+        String lancamento = texto != null ? texto.trim().toUpperCase(Locale.ROOT) : "";
+        if (!ResumoMensalService.DESPESA.equals(lancamento) && !ResumoMensalService.RECEITA.equals(lancamento)) {
+            throw new RuntimeException("Lancamento deve ser DESPESA ou RECEITA");
+        }
+        return lancamento;
+    }
+
+    // A previsao do dashboard e o ETag mudam em todos os meses do usuario
+    private void registrarMudanca(Long usuarioId) {
+        dashboardCache.invalidarMesesDoUsuario(usuarioId);
+        usuarioService.incrementarVersaoDados(usuarioId);
+    }
+
+    // Valores em centavos das recorrencias ainda nao geradas no mes
+    public record FixosPrevistos(long despesas, long receitas) {
+    }
+
+    // Totais de um bloco gerado
+    private record Bloco(int usuarios, int despesas, int receitas) {
+    }
+}
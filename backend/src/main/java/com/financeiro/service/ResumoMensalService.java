@@ -0,0 +1,300 @@
+package com.financeiro.service;
+
+import com.financeiro.model.Despesa;
+import com.financeiro.model.Dinheiro;
+import com.financeiro.model.Opcao;
+import com.financeiro.model.Receita;
+import com.financeiro.model.ResumoMensal;
+import com.financeiro.repository.ResumoMensalRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service do ResumoMensal - mantem os totais pre-calculados de cada mes.
+ * Os services de Despesa e Receita chamam este service dentro da mesma
+ * transacao da escrita, somando ou tirando o valor do grupo do mes.
+ * Um job noturno recalcula os meses recentes do zero (em blocos de usuarios) para corrigir diferencas.
+ */
+@Service
+@Timed("financeiro.service")
+public class ResumoMensalService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumoMensalService.class);
+
+    public static final String DESPESA = "DESPESA";
+    public static final String RECEITA = "RECEITA";
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Usuarios por bloco no recalculo noturno (cada bloco eh uma transacao)
+    @Value("${resumo.recalculo.usuarios-por-bloco:500}")
+    private int usuariosPorBloco;
+
+    private TransactionTemplate transacao;
+
+    // Toda mudanca no resumo de um mes passa por aqui, entao eh aqui que o
+    // dashboard em cache daquele mes eh invalidado
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @PostConstruct
+    public void init() {
+        transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Busca as linhas do resumo do mes (poucas linhas, uma por grupo).
+     */
+    @Transactional(readOnly = true)
+    public List<ResumoMensal> buscar(Long usuarioId, int ano, int mes) {
+        return resumoMensalRepository.findByUsuarioIdAndAnoAndMes(usuarioId, ano, mes);
+    }
+
+    /**
+     * Busca as linhas do resumo de todos os meses entre "de" e "ate" (inclusive), em uma query.
+     */
+    @Transactional(readOnly = true)
+    public List<ResumoMensal> buscarPeriodo(Long usuarioId, YearMonth de, YearMonth ate) {
+        return resumoMensalRepository.buscarPeriodo(usuarioId,
+                de.getYear() * 100 + de.getMonthValue(),
+                ate.getYear() * 100 + ate.getMonthValue());
+    }
+
+    /**
+     * Soma (sinal = 1) ou tira (sinal = -1) uma despesa do resumo do mes dela.
+     * Despesas sem data nao aparecem em nenhum mes, entao sao ignoradas.
+     */
+    public void registrarDespesa(Despesa despesa, int sinal) {
+        if (despesa.getData() == null || despesa.getUsuarioId() == null) {
+            return;
+        }
+        somar(despesa.getUsuarioId(), despesa.getData(), DESPESA, Opcao.codigo(despesa.getCategoria()),
+                Opcao.codigo(despesa.getTipo()), Opcao.codigo(despesa.getStatus()),
+                centavos(despesa.getValor()) * sinal, sinal);
+    }
+
+    /**
+     * Soma (sinal = 1) ou tira (sinal = -1) uma receita do resumo do mes dela.
+     */
+    public void registrarReceita(Receita receita, int sinal) {
+        if (receita.getData() == null || receita.getUsuarioId() == null) {
+            return;
+        }
+        somar(receita.getUsuarioId(), receita.getData(), RECEITA, (short) 0,
+                Opcao.codigo(receita.getTipo()), (short) 0, centavos(receita.getValor()) * sinal, sinal);
+    }
+
+    /**
+     * Soma (sinal = 1) ou tira (sinal = -1) varias despesas (importacao e exclusao em lote).
+     * Agrupa em memoria antes, entao faz um UPSERT por grupo e nao por linha.
+     */
+    public void registrarDespesas(List<Despesa> despesas, int sinal) {
+        Map<Grupo, long[]> grupos = new HashMap<>();
+        acumularDespesas(grupos, despesas, sinal);
+        gravar(grupos);
+    }
+
+    /**
+     * Troca varias despesas alteradas em lote: tira os valores de antes e soma os atuais.
+     * Quem mudou de grupo (ex: Pendente -> Pago) move o valor entre os dois grupos.
+     */
+    public void alterarDespesas(List<Despesa> anteriores, List<Despesa> atuais) {
+        Map<Grupo, long[]> grupos = new HashMap<>();
+        acumularDespesas(grupos, anteriores, -1);
+        acumularDespesas(grupos, atuais, 1);
+        gravar(grupos);
+    }
+
+    private void acumularDespesas(Map<Grupo, long[]> grupos, List<Despesa> despesas, int sinal) {
+        for (Despesa despesa : despesas) {
+            if (despesa.getData() == null || despesa.getUsuarioId() == null) {
+                continue;
+            }
+            Grupo grupo = new Grupo(despesa.getUsuarioId(), despesa.getData().getYear(),
+                    despesa.getData().getMonthValue(), DESPESA, Opcao.codigo(despesa.getCategoria()),
+                    Opcao.codigo(despesa.getTipo()), Opcao.codigo(despesa.getStatus()));
+            acumular(grupos, grupo, despesa.getValor(), sinal);
+        }
+    }
+
+    /**
+     * Soma varias receitas novas (importacao em lote), um UPSERT por grupo.
+     */
+    public void registrarReceitas(List<Receita> receitas) {
+        Map<Grupo, long[]> grupos = new HashMap<>();
+        for (Receita receita : receitas) {
+            if (receita.getData() == null || receita.getUsuarioId() == null) {
+                continue;
+            }
+            Grupo grupo = new Grupo(receita.getUsuarioId(), receita.getData().getYear(),
+                    receita.getData().getMonthValue(), RECEITA, (short) 0, Opcao.codigo(receita.getTipo()), (short) 0);
+            acumular(grupos, grupo, receita.getValor(), 1);
+        }
+        gravar(grupos);
+    }
+
+    /**
+     * Recalcula do zero o resumo de um mes do usuario, a partir das
+     * despesas e receitas gravadas.
+     */
+    @Transactional
+    public void recalcular(Long usuarioId, int ano, int mes) {
+        LocalDate inicio = LocalDate.of(ano, mes, 1);
+        LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        resumoMensalRepository.apagarMes(usuarioId, ano, mes);
+        resumoMensalRepository.recalcularDespesas(usuarioId, ano, mes, inicio, fim);
+        resumoMensalRepository.recalcularReceitas(usuarioId, ano, mes, inicio, fim);
+        dashboardCache.invalidarMes(usuarioId, ano, mes);
+        usuarioService.incrementarVersaoDados(usuarioId);
+    }
+
+    /**
+     * Job noturno: recalcula o mes atual e o anterior de todos os usuarios,
+     * corrigindo qualquer diferenca acumulada pelas somas incrementais.
+     *
+     * Percorre os usuarios em blocos (em ordem de id), cada bloco na sua propria transacao
+     * curta: as escritas dos usuarios esperam no maximo um bloco, e uma falha desfaz so
+     * o bloco dela. Sem transacao propria.
+     */
+    @Scheduled(cron = "${resumo.recalculo.cron:0 30 3 * * *}")
+    public void recalcularMesesRecentes() {
+        YearMonth atual = YearMonth.now();
+        List<YearMonth> meses = List.of(atual.minusMonths(1), atual);
+        long inicio = System.nanoTime();
+
+        int blocos = 0;
+        long usuarios = 0;
+        long depoisDe = 0;
+        List<Long> bloco;
+        while (!(bloco = usuarioService.proximosIds(depoisDe, usuariosPorBloco)).isEmpty()) {
+            List<Long> ids = bloco;
+            transacao.executeWithoutResult(status -> recalcularBloco(ids, meses));
+            depoisDe = bloco.get(bloco.size() - 1);
+            blocos++;
+            usuarios += bloco.size();
+        }
+        log.atInfo()
+                .addKeyValue("meses", meses.get(0) + "," + atual)
+                .addKeyValue("blocos", blocos)
+                .addKeyValue("usuarios", usuarios)
+                .addKeyValue("duracaoMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio))
+                .log("Resumo mensal recalculado");
+    }
+
+    // Recalcula os meses de um bloco de usuarios (uma transacao)
+    private void recalcularBloco(List<Long> usuarios, List<YearMonth> meses) {
+        Long de = usuarios.get(0);
+        Long ate = usuarios.get(usuarios.size() - 1);
+        for (YearMonth mes : meses) {
+            LocalDate inicio = mes.atDay(1);
+            LocalDate fim = mes.atEndOfMonth();
+            resumoMensalRepository.apagarMesDoBloco(de, ate, mes.getYear(), mes.getMonthValue());
+            resumoMensalRepository.recalcularDespesasDoBloco(de, ate, mes.getYear(), mes.getMonthValue(), inicio, fim);
+            resumoMensalRepository.recalcularReceitasDoBloco(de, ate, mes.getYear(), mes.getMonthValue(), inicio, fim);
+            for (Long usuarioId : usuarios) {
+                dashboardCache.invalidarMes(usuarioId, mes.getYear(), mes.getMonthValue());
+            }
+        }
+        // O recalculo pode corrigir totais, entao os ETags ja enviados deixam de valer
+        usuarioService.incrementarVersaoDadosDe(usuarios);
+    }
+
+    // Grupo do resumo (os campos da chave unica da tabela; 0 = campo sem valor)
+    private record Grupo(Long usuarioId, int ano, int mes, String lancamento,
+                         short categoria, short tipo, short status) {
+    }
+
+    // Mes de um usuario (o cache do dashboard eh invalidado por mes)
+    private record MesDoUsuario(Long usuarioId, int ano, int mes) {
+    }
+
+    // Soma em centavos e quantidade do grupo
+    private void acumular(Map<Grupo, long[]> grupos, Grupo grupo, Dinheiro valor, int sinal) {
+        long[] soma = grupos.computeIfAbsent(grupo, g -> new long[2]);
+        soma[0] += centavos(valor) * sinal;
+        soma[1] += sinal;
+    }
+
+    /**
+     * Um UPSERT por grupo (pulando os que se anularam), todos no mesmo lote JDBC
+     * (uma ida ao banco mesmo com milhares de grupos), e uma invalidacao do cache por mes.
+     */
+    private void gravar(Map<Grupo, long[]> grupos) {
+        // Mes -> se algum grupo perdeu lancamentos (pode ter ficado vazio)
+        Map<MesDoUsuario, Boolean> meses = new HashMap<>();
+        List<SqlParameterSource> upserts = new ArrayList<>(grupos.size());
+        for (Map.Entry<Grupo, long[]> entry : grupos.entrySet()) {
+            Grupo g = entry.getKey();
+            long[] soma = entry.getValue();
+            if (soma[0] == 0 && soma[1] == 0) {
+                continue;
+            }
+            upserts.add(new MapSqlParameterSource()
+                    .addValue("usuarioId", g.usuarioId())
+                    .addValue("ano", g.ano())
+                    .addValue("mes", g.mes())
+                    .addValue("lancamento", g.lancamento())
+                    .addValue("categoria", g.categoria())
+                    .addValue("tipo", g.tipo())
+                    .addValue("status", g.status())
+                    .addValue("total", soma[0])
+                    .addValue("quantidade", soma[1]));
+            meses.merge(new MesDoUsuario(g.usuarioId(), g.ano(), g.mes()), soma[1] < 0, Boolean::logicalOr);
+        }
+        if (!upserts.isEmpty()) {
+            // Mesma conexao (e transacao) do JPA
+            jdbcTemplate.batchUpdate(ResumoMensalRepository.SOMAR, upserts.toArray(SqlParameterSource[]::new));
+        }
+        for (Map.Entry<MesDoUsuario, Boolean> entry : meses.entrySet()) {
+            MesDoUsuario m = entry.getKey();
+            if (entry.getValue()) {
+                resumoMensalRepository.removerGruposVazios(m.usuarioId(), m.ano(), m.mes());
+            }
+            dashboardCache.invalidarMes(m.usuarioId(), m.ano(), m.mes());
+        }
+    }
+
+    private void somar(Long usuarioId, LocalDate data, String lancamento, short categoria,
+                       short tipo, short status, long centavos, int quantidade) {
+        resumoMensalRepository.somar(usuarioId, data.getYear(), data.getMonthValue(), lancamento,
+                categoria, tipo, status, centavos, quantidade);
+        if (quantidade < 0) {
+            resumoMensalRepository.removerGruposVazios(usuarioId, data.getYear(), data.getMonthValue());
+        }
+        dashboardCache.invalidarMes(usuarioId, data);
+    }
+
+    private static long centavos(Dinheiro valor) {
+        return valor != null ? valor.centavos() : 0;
+    }
+}
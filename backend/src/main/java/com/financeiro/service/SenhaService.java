@@ -0,0 +1,159 @@
+package com.financeiro.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Service das senhas - gera e confere os hashes BCrypt em um pool proprio.
+ *
+ * O BCrypt gasta CPU de proposito (dezenas de ms por senha). Rodando em um pool
+ * pequeno e com fila limitada, um pico de logins nao ocupa todas as threads do
+ * Tomcat: com a fila cheia o pedido eh recusado na hora (SobrecargaException, 429)
+ * e o resto da API continua respondendo.
+ */
+@Service
+public class SenhaService {
+
+    private static final Logger log = LoggerFactory.getLogger(SenhaService.class);
+
+    private static final String MENSAGEM_SOBRECARGA =
+            "Muitas tentativas de login ao mesmo tempo, tente novamente em instantes";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Custo do BCrypt usado nos hashes novos (o mesmo do PasswordEncoder)
+    @Value("${senha.bcrypt.custo:10}")
+    private int custo;
+
+    // Threads do pool (cada hash ocupa uma CPU enquanto roda)
+    @Value("${senha.hash.threads:2}")
+    private int threads;
+
+    // Pedidos esperando na fila; passando disso o pedido eh recusado
+    @Value("${senha.hash.fila:50}")
+    private int tamanhoFila;
+
+    // Tempo maximo esperando o hash (em ms), contando a fila
+    @Value("${senha.hash.timeout:5000}")
+    private long timeout;
+
+    private ExecutorService executor;
+    private Counter recusados;
+
+    @PostConstruct
+    public void init() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoFila), new CustomizableThreadFactory("senha-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Tamanho da fila, threads ativas e tempo das tarefas (executor.*, name=senha.hash)
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "senha.hash");
+        recusados = Counter.builder("financeiro.senha.recusados")
+                .description("Pedidos de hash recusados com o pool cheio")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    // Gera o hash da senha (registro)
+    public String gerarHash(String senha) {
+        return executar(() -> gerar(senha));
+    }
+
+    // Confere a senha com o hash salvo (login)
+    public boolean verificar(String senha, String hash) {
+        return executar(() -> meterRegistry.timer("financeiro.bcrypt", "operacao", "verificar")
+                .record(() -> passwordEncoder.matches(senha, hash)));
+    }
+
+    /**
+     * Se o hash salvo foi gerado com outro custo (ex: o custo foi aumentado).
+     * Hashes que nao sao BCrypt tambem precisam ser refeitos.
+     */
+    public boolean precisaRefazer(String hash) {
+        if (hash == null || hash.length() < 7 || !hash.startsWith("$2") || hash.charAt(6) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6)) != custo;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Refaz o hash com o custo atual em segundo plano e entrega para "gravar".
+     * Nao atrasa o login; se o pool estiver cheio, fica para o proximo login.
+     */
+    public void refazerDepois(String senha, Consumer<String> gravar) {
+        try {
+            executor.execute(() -> {
+                try {
+                    gravar.accept(gerar(senha));
+                } catch (RuntimeException e) {
+                    log.atWarn().addKeyValue("erro", e.getMessage()).log("Erro ao refazer o hash da senha");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recusados.increment();
+        }
+    }
+
+    private String gerar(String senha) {
+        return meterRegistry.timer("financeiro.bcrypt", "operacao", "gerar")
+                .record(() -> passwordEncoder.encode(senha));
+    }
+
+    // Roda o hash no pool e espera o resultado na thread da requisicao (sem gastar CPU)
+    private <T> T executar(Supplier<T> tarefa) {
+        Future<T> resultado;
+        try {
+            resultado = executor.submit(tarefa::get);
+        } catch (RejectedExecutionException e) {
+            recusados.increment();
+            throw new SobrecargaException(MENSAGEM_SOBRECARGA);
+        }
+        try {
+            return resultado.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            recusados.increment();
+            throw new SobrecargaException(MENSAGEM_SOBRECARGA);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrompido esperando o hash da senha");
+        }
+    }
+}
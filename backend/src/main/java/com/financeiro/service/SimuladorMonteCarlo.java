@@ -0,0 +1,277 @@
+package com.financeiro.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Projecao do saldo de uma carteira mes a mes, com um aporte fixo no fim de cada mes.
+ * Cada classe da carteira (CDB, Acoes...) tem peso, rentabilidade e volatilidade anuais,
+ * e a carteira eh rebalanceada todo mes para os pesos informados.
+ *
+ * - projetar: cada classe rende exatamente a rentabilidade esperada
+ * - simular (Monte Carlo): o retorno mensal de cada classe eh lognormal, com a mesma
+ *   media da projecao deterministica
+ *
+ * Os caminhos sao divididos em blocos num ForkJoinPool. Cada bloco usa o seu gerador
+ * (SplittableRandom.split) e a divisao depende so do numero de caminhos, entao a mesma
+ * semente da o mesmo resultado com qualquer numero de threads. O laco dos caminhos nao
+ * aloca nada: so conta o saldo no histograma do bloco.
+ *
+ * Os percentis saem desses histogramas, com baldes em escala logaritmica (cada balde 2%
+ * maior que o anterior): o erro relativo fica abaixo de 2% (em geral bem menos, com a
+ * interpolacao dentro do balde) sem guardar os caminhos.
+ * Valores em centavos.
+ */
+public final class SimuladorMonteCarlo {
+
+    // Percentis das bandas
+    public static final int[] PERCENTIS = {5, 25, 50, 75, 95};
+
+    private static final double GAMA = 1.02;
+    private static final double INVERSO_LOG_GAMA = 1 / Math.log(GAMA);
+    // Baldes ate 1e16 centavos; o balde 0 junta tudo abaixo de 1 centavo
+    private static final int BALDES = 2 + (int) Math.ceil(Math.log(1e16) * INVERSO_LOG_GAMA);
+
+    // Menor bloco de caminhos e maximo de blocos (os histogramas de cada bloco ficam em memoria)
+    private static final int MENOR_BLOCO = 1024;
+    private static final int MAXIMO_BLOCOS = 64;
+
+    // Fator esperado de um mes da carteira (projecao deterministica)
+    private final double fatorEsperado;
+
+    // Soma de peso * fator das classes sem volatilidade (rendem sempre o esperado)
+    private final double fatorFixo;
+
+    // Classes com volatilidade: peso, media e desvio do log-retorno mensal
+    private final double[] pesos;
+    private final double[] medias;
+    private final double[] desvios;
+
+    /**
+     * Pesos em qualquer escala (sao normalizados), rentabilidade e volatilidade anuais
+     * em fracao (0.12 = 12% ao ano). Sem nenhum peso, a carteira fica parada (rende 0).
+     */
+    public SimuladorMonteCarlo(double[] pesos, double[] rentabilidadeAnual, double[] volatilidadeAnual) {
+        double total = 0;
+        int aleatorias = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            total += pesos[i];
+            if (pesos[i] > 0 && volatilidadeAnual[i] > 0) {
+                aleatorias++;
+            }
+        }
+        this.pesos = new double[aleatorias];
+        this.medias = new double[aleatorias];
+        this.desvios = new double[aleatorias];
+
+        double esperado = total > 0 ? 0 : 1;
+        double fixo = total > 0 ? 0 : 1;
+        int k = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            if (pesos[i] <= 0) {
+                continue;
+            }
+            double peso = pesos[i] / total;
+            double logMensal = Math.log1p(rentabilidadeAnual[i]) / 12;
+            esperado += peso * Math.exp(logMensal);
+            if (volatilidadeAnual[i] > 0) {
+                // Media do log-retorno ajustada para o fator esperado ser o mesmo da projecao
+                double desvio = volatilidadeAnual[i] / Math.sqrt(12);
+                this.pesos[k] = peso;
+                this.medias[k] = logMensal - desvio * desvio / 2;
+                this.desvios[k] = desvio;
+                k++;
+            } else {
+                fixo += peso * Math.exp(logMensal);
+            }
+        }
+        this.fatorEsperado = esperado;
+        this.fatorFixo = fixo;
+    }
+
+    /**
+     * Saldo esperado no fim de cada mes (posicao 0 = fim do mes 1).
+     */
+    public double[] projetar(double inicial, double aporte, int meses) {
+        double[] saldos = new double[meses];
+        double saldo = inicial;
+        for (int mes = 0; mes < meses; mes++) {
+            saldo = saldo * fatorEsperado + aporte;
+            saldos[mes] = saldo;
+        }
+        return saldos;
+    }
+
+    /**
+     * Quantos meses ate o saldo esperado chegar na meta, ou -1 se nao chegar em "limite" meses.
+     */
+    public int mesesParaMeta(double inicial, double aporte, double meta, int limite) {
+        double saldo = inicial;
+        for (int mes = 0; mes <= limite; mes++) {
+            if (saldo >= meta) {
+                return mes;
+            }
+            saldo = saldo * fatorEsperado + aporte;
+        }
+        return -1;
+    }
+
+    /**
+     * Simula "caminhos" trajetorias ate o ultimo mes de "pontos" (meses em ordem crescente)
+     * e devolve as bandas de percentis e a media do saldo em cada ponto, alem da fracao
+     * dos caminhos que terminam com pelo menos "meta".
+     */
+    public Resultado simular(double inicial, double aporte, int[] pontos, int caminhos, long semente,
+                             double meta, ForkJoinPool pool) {
+        int bloco = Math.max(MENOR_BLOCO, (caminhos + MAXIMO_BLOCOS - 1) / MAXIMO_BLOCOS);
+        Parcial total = pool.invoke(new Blocos(inicial, aporte, pontos, meta, caminhos, bloco,
+                new SplittableRandom(semente)));
+
+        double[][] bandas = new double[pontos.length][];
+        double[] medias = new double[pontos.length];
+        for (int p = 0; p < pontos.length; p++) {
+            bandas[p] = percentis(total.contagem, p * BALDES, caminhos, total.minimos[p], total.maximos[p]);
+            medias[p] = total.somas[p] / caminhos;
+        }
+        return new Resultado(bandas, medias, (double) total.atingiram / caminhos);
+    }
+
+    // Percentis (pelo posto mais proximo) a partir do histograma de um ponto, sem sair
+    // do menor e do maior saldo vistos (sem volatilidade, todos os percentis sao exatos)
+    private static double[] percentis(int[] contagem, int inicio, int caminhos, double minimo, double maximo) {
+        double[] valores = new double[PERCENTIS.length];
+        long acumulado = 0;
+        int balde = 0;
+        for (int i = 0; i < PERCENTIS.length; i++) {
+            long posto = Math.max(1, (long) Math.ceil(PERCENTIS[i] / 100.0 * caminhos));
+            while (acumulado + contagem[inicio + balde] < posto) {
+                acumulado += contagem[inicio + balde];
+                balde++;
+            }
+            double valor = valor(balde, (posto - acumulado - 0.5) / contagem[inicio + balde]);
+            valores[i] = Math.max(minimo, Math.min(maximo, valor));
+        }
+        return valores;
+    }
+
+    // Balde do saldo: o balde i (i >= 1) vai de GAMA^(i-1) ate GAMA^i centavos
+    private static int balde(double saldo) {
+        if (saldo < 1) {
+            return 0;
+        }
+        return Math.min(BALDES - 1, 1 + (int) (Math.log(saldo) * INVERSO_LOG_GAMA));
+    }
+
+    // Valor dentro do balde pela posicao do posto entre os caminhos do balde (0 a 1),
+    // supondo os caminhos espalhados de forma uniforme na escala logaritmica
+    private static double valor(int balde, double posicao) {
+        return balde == 0 ? 0 : Math.pow(GAMA, balde - 1 + posicao);
+    }
+
+    /**
+     * Percentis (na ordem de PERCENTIS) e media do saldo em cada ponto,
+     * e a fracao dos caminhos que terminaram na meta.
+     */
+    public record Resultado(double[][] bandas, double[] medias, double probabilidadeMeta) {
+    }
+
+    // Histograma e somas de um grupo de caminhos
+    private static final class Parcial {
+        final int[] contagem;
+        final double[] somas;
+        final double[] minimos;
+        final double[] maximos;
+        long atingiram;
+
+        Parcial(int pontos) {
+            contagem = new int[pontos * BALDES];
+            somas = new double[pontos];
+            minimos = new double[pontos];
+            maximos = new double[pontos];
+            Arrays.fill(minimos, Double.POSITIVE_INFINITY);
+            Arrays.fill(maximos, Double.NEGATIVE_INFINITY);
+        }
+
+        void somar(Parcial outro) {
+            for (int i = 0; i < contagem.length; i++) {
+                contagem[i] += outro.contagem[i];
+            }
+            for (int i = 0; i < somas.length; i++) {
+                somas[i] += outro.somas[i];
+                minimos[i] = Math.min(minimos[i], outro.minimos[i]);
+                maximos[i] = Math.max(maximos[i], outro.maximos[i]);
+            }
+            atingiram += outro.atingiram;
+        }
+    }
+
+    // Divide os caminhos ao meio ate o tamanho do bloco; cada metade fica com um gerador
+    private final class Blocos extends RecursiveTask<Parcial> {
+        private final double inicial;
+        private final double aporte;
+        private final int[] pontos;
+        private final double meta;
+        private final int caminhos;
+        private final int bloco;
+        private final SplittableRandom gerador;
+
+        Blocos(double inicial, double aporte, int[] pontos, double meta, int caminhos, int bloco,
+               SplittableRandom gerador) {
+            this.inicial = inicial;
+            this.aporte = aporte;
+            this.pontos = pontos;
+            this.meta = meta;
+            this.caminhos = caminhos;
+            this.bloco = bloco;
+            this.gerador = gerador;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (caminhos <= bloco) {
+                return percorrer();
+            }
+            int metade = caminhos / 2;
+            Blocos esquerda = new Blocos(inicial, aporte, pontos, meta, metade, bloco, gerador.split());
+            esquerda.fork();
+            Parcial parcial = new Blocos(inicial, aporte, pontos, meta, caminhos - metade, bloco, gerador).compute();
+            parcial.somar(esquerda.join());
+            return parcial;
+        }
+
+        private Parcial percorrer() {
+            Parcial parcial = new Parcial(pontos.length);
+            int[] contagem = parcial.contagem;
+            double[] somas = parcial.somas;
+            double[] minimos = parcial.minimos;
+            double[] maximos = parcial.maximos;
+            int meses = pontos[pontos.length - 1];
+            int classes = pesos.length;
+
+            for (int c = 0; c < caminhos; c++) {
+                double saldo = inicial;
+                int ponto = 0;
+                for (int mes = 1; mes <= meses; mes++) {
+                    double fator = fatorFixo;
+                    for (int i = 0; i < classes; i++) {
+                        fator += pesos[i] * Math.exp(medias[i] + desvios[i] * gerador.nextGaussian());
+                    }
+                    saldo = saldo * fator + aporte;
+                    if (mes == pontos[ponto]) {
+                        contagem[ponto * BALDES + balde(saldo)]++;
+                        somas[ponto] += saldo;
+                        minimos[ponto] = Math.min(minimos[ponto], saldo);
+                        maximos[ponto] = Math.max(maximos[ponto], saldo);
+                        ponto++;
+                    }
+                }
+                if (saldo >= meta) {
+                    parcial.atingiram++;
+                }
+            }
+            return parcial;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.financeiro.service;
+
+/**
+ * Erro de servidor sobrecarregado (ex: pool de hash de senhas cheio).
+ * Os controllers respondem com 429 para o cliente tentar de novo depois.
+ */
+public class SobrecargaException extends RuntimeException {
+
+    public SobrecargaException(String mensagem) {
+        super(mensagem);
+    }
+}
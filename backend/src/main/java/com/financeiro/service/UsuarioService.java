@@ -1,15 +1,27 @@
 package com.financeiro.service;
 
 import com.financeiro.config.JwtUtil;
+import com.financeiro.config.RoteamentoDataSource;
+import com.financeiro.config.UsuarioLogado;
 import com.financeiro.model.Usuario;
 import com.financeiro.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,17 +29,43 @@ import java.util.Map;
  * A senha eh salva criptografada com BCrypt.
  */
 @Service
+@Timed("financeiro.service")
 public class UsuarioService {
 
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private SenhaService senhaService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    // Quantos emails guardar no cache email -> id
+    @Value("${usuario.cache.tamanho-maximo:10000}")
+    private int cacheTamanhoMaximo;
+
+    // Tempo de vida de cada entrada do cache (em milissegundos)
+    @Value("${usuario.cache.ttl:300000}")
+    private long cacheTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Cache email -> id do usuario, para nao ir no banco em toda requisicao
+    private Cache<String, Long> cacheIds;
+
+    // Cache limitado por tamanho; cada email sai depois do ttl (o id pode mudar se o usuario for recriado)
+    @PostConstruct
+    public void init() {
+        cacheIds = Caffeine.newBuilder()
+                .maximumSize(cacheTamanhoMaximo)
+                .expireAfterWrite(Duration.ofMillis(cacheTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cacheIds, "usuario.ids");
+    }
+
     /**
      * Registra um novo usuario no sistema.
      * Retorna um Map com o token JWT gerado.
@@ -38,12 +76,13 @@ public class UsuarioService {
             throw new RuntimeException("Ja existe um usuario com esse email");
         }
 
-        // Criptografa a senha antes de salvar
-        usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
+        // Criptografa a senha antes de salvar (no pool de hash, ver SenhaService)
+        usuario.setSenha(senhaService.gerarHash(usuario.getSenha()));
         usuarioRepository.save(usuario);
+        invalidarCache(usuario.getEmail());
 
         // Gera o token JWT
-        String token = jwtUtil.gerarToken(usuario.getEmail());
+        String token = jwtUtil.gerarToken(usuario.getEmail(), usuario.getId());
 
         Map<String, String> resposta = new HashMap<>();
         resposta.put("token", token);
@@ -54,19 +93,27 @@ public class UsuarioService {
     /**
      * Faz o login do usuario.
      * Verifica email e senha, retorna token se correto.
+     * Sem transacao: a espera pelo BCrypt seguraria uma conexao do pool.
      */
     public Map<String, String> login(String email, String senha) {
         // Busca o usuario pelo email
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Email ou senha incorretos"));
 
-        // Verifica se a senha esta correta
-        if (!passwordEncoder.matches(senha, usuario.getSenha())) {
+        // Verifica se a senha esta correta (o BCrypt eh a parte mais cara do login)
+        if (!senhaService.verificar(senha, usuario.getSenha())) {
             throw new RuntimeException("Email ou senha incorretos");
         }
 
+        // Hash gerado com outro custo: refaz com o custo atual sem atrasar o login
+        if (senhaService.precisaRefazer(usuario.getSenha())) {
+            String hashAntigo = usuario.getSenha();
+            senhaService.refazerDepois(senha,
+                    hashNovo -> usuarioRepository.trocarHashSenha(usuario.getId(), hashAntigo, hashNovo));
+        }
+
         // Gera o token JWT
-        String token = jwtUtil.gerarToken(email);
+        String token = jwtUtil.gerarToken(usuario.getEmail(), usuario.getId());
 
         Map<String, String> resposta = new HashMap<>();
         resposta.put("token", token);
@@ -77,15 +124,72 @@ public class UsuarioService {
     /**
      * Pega o ID do usuario logado a partir do token JWT no SecurityContext.
      * Usado pelos outros services para filtrar dados por usuario.
+     * Tokens novos ja trazem o id, entao nao vai no banco. Tokens antigos
+     * (so com email) buscam o id pelo email, com cache.
      */
     public Long getUsuarioLogadoId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getPrincipal() == null) {
+        if (auth == null || !(auth.getPrincipal() instanceof UsuarioLogado usuarioLogado)) {
             throw new RuntimeException("Usuario nao autenticado");
         }
-        String email = (String) auth.getPrincipal();
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario nao encontrado"));
-        return usuario.getId();
+        if (usuarioLogado.id() != null) {
+            return usuarioLogado.id();
+        }
+        String email = usuarioLogado.email();
+
+        // Sem o email no cache busca no banco; usuario inexistente nao entra no cache
+        return cacheIds.get(email, chave -> usuarioRepository.findByEmail(chave)
+                .orElseThrow(() -> new RuntimeException("Usuario nao encontrado"))
+                .getId());
+    }
+
+    /**
+     * Gera o ETag dos dados do usuario logado a partir da versao dos dados.
+     * Enquanto nada for escrito, o ETag continua o mesmo.
+     * A versao vem sempre do primario: lida de uma replica atrasada, o ETag antigo
+     * ainda bateria e quem acabou de escrever receberia 304 com os dados velhos.
+     * O noPrimario envolve tudo porque a conexao so eh escolhida no primeiro SQL
+     * (que pode ser a busca do id pelo email, com token antigo).
+     */
+    @Transactional(readOnly = true)
+    public String getEtagDados() {
+        return RoteamentoDataSource.noPrimario(() -> {
+            Long usuarioId = getUsuarioLogadoId();
+            Long versao = usuarioRepository.buscarVersaoDados(usuarioId);
+            return "\"" + usuarioId + "-" + (versao != null ? versao : 0) + "\"";
+        });
+    }
+
+    /**
+     * Marca que os dados do usuario mudaram (invalida os ETags ja enviados).
+     * Deve ser chamado dentro da transacao da escrita.
+     */
+    public void incrementarVersaoDados(Long usuarioId) {
+        usuarioRepository.incrementarVersaoDados(usuarioId);
+    }
+
+    // Marca que os dados de varios usuarios mudaram
+    public void incrementarVersaoDadosDe(Collection<Long> usuarioIds) {
+        usuarioRepository.incrementarVersaoDadosDe(usuarioIds);
+    }
+
+    // Proximos ids de usuario depois de "depoisDe", em ordem (jobs que percorrem todos em blocos)
+    public List<Long> proximosIds(long depoisDe, int limite) {
+        return usuarioRepository.proximosIds(depoisDe, limite);
+    }
+
+    // Quantas vezes o id foi encontrado no cache
+    public long getCacheHits() {
+        return cacheIds.stats().hitCount();
+    }
+
+    // Quantas vezes foi preciso buscar o id no banco
+    public long getCacheMisses() {
+        return cacheIds.stats().missCount();
+    }
+
+    // Remove o email do cache (ex: quando o usuario eh registrado)
+    public void invalidarCache(String email) {
+        cacheIds.invalidate(email);
     }
 }
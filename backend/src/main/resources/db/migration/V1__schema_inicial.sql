@@ -0,0 +1,56 @@
+-- ===========================================
+-- Schema inicial (o mesmo que o Hibernate criava com ddl-auto=update).
+-- Bancos que ja existiam antes do Flyway entram com baseline na versao 1,
+-- entao este script so roda em bancos novos.
+-- ===========================================
+
+CREATE TABLE usuarios (
+    id BIGSERIAL PRIMARY KEY,
+    nome VARCHAR(255),
+    email VARCHAR(255),
+    senha VARCHAR(255),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE receitas (
+    id BIGSERIAL PRIMARY KEY,
+    data DATE,
+    fonte VARCHAR(255),
+    tipo VARCHAR(255),
+    valor DOUBLE PRECISION,
+    observacoes VARCHAR(255),
+    usuario_id BIGINT
+);
+
+CREATE TABLE despesas (
+    id BIGSERIAL PRIMARY KEY,
+    data DATE,
+    descricao VARCHAR(255),
+    categoria VARCHAR(255),
+    tipo VARCHAR(255),
+    forma_pagamento VARCHAR(255),
+    valor DOUBLE PRECISION,
+    status VARCHAR(255),
+    usuario_id BIGINT
+);
+
+CREATE TABLE investimentos (
+    id BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(255),
+    descricao VARCHAR(255),
+    data_aporte DATE,
+    valor_investido DOUBLE PRECISION,
+    rentabilidade_estimada DOUBLE PRECISION,
+    rentabilidade_real DOUBLE PRECISION,
+    status VARCHAR(255),
+    usuario_id BIGINT
+);
+
+CREATE TABLE metas (
+    id BIGSERIAL PRIMARY KEY,
+    descricao VARCHAR(255),
+    valor_meta DOUBLE PRECISION,
+    valor_atual DOUBLE PRECISION,
+    aporte_mensal DOUBLE PRECISION,
+    usuario_id BIGINT
+);
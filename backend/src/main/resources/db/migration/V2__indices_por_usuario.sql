@@ -0,0 +1,27 @@
+-- ===========================================
+-- Indices para as consultas por usuario e periodo.
+-- Sem eles, findByUsuarioIdAndDataBetween e findByUsuarioId
+-- percorrem a tabela inteira (de todos os usuarios).
+--
+-- O INCLUDE guarda as colunas usadas nas somas do dashboard dentro
+-- do indice, entao o PostgreSQL responde com index-only scan.
+-- ===========================================
+
+-- Despesas do mes (listagem e somas por categoria/tipo/status)
+CREATE INDEX IF NOT EXISTS idx_despesas_usuario_data
+    ON despesas (usuario_id, data)
+    INCLUDE (categoria, tipo, status, valor);
+
+-- Receitas do mes (listagem e soma do valor)
+CREATE INDEX IF NOT EXISTS idx_receitas_usuario_data
+    ON receitas (usuario_id, data)
+    INCLUDE (valor);
+
+-- Investimentos ativos do usuario (soma do total investido e patrimonio)
+CREATE INDEX IF NOT EXISTS idx_investimentos_usuario_status
+    ON investimentos (usuario_id, status)
+    INCLUDE (valor_investido, rentabilidade_real);
+
+-- Metas do usuario
+CREATE INDEX IF NOT EXISTS idx_metas_usuario
+    ON metas (usuario_id);
@@ -0,0 +1,8 @@
+-- ===========================================
+-- Despesas e receitas passam a usar id por sequence (pooled) no Hibernate,
+-- reservando 50 ids por chamada. O incremento da sequence precisa ser igual
+-- ao allocationSize das entidades para nao gerar ids repetidos.
+-- ===========================================
+
+ALTER SEQUENCE despesas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE receitas_id_seq INCREMENT BY 50;
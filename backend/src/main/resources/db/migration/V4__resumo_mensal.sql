@@ -0,0 +1,40 @@
+-- ===========================================
+-- Resumo mensal pre-calculado do dashboard.
+-- Uma linha por (usuario, ano, mes, lancamento, categoria, tipo, status)
+-- com a soma dos valores e a quantidade de lancamentos.
+-- Atualizado na mesma transacao de cada escrita em despesas/receitas.
+-- Campos vazios sao guardados como '' (fazem parte da chave unica).
+-- ===========================================
+
+CREATE TABLE resumo_mensal (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    ano INTEGER NOT NULL,
+    mes INTEGER NOT NULL,
+    -- 'DESPESA' ou 'RECEITA'
+    lancamento VARCHAR(10) NOT NULL,
+    categoria VARCHAR(255) NOT NULL DEFAULT '',
+    tipo VARCHAR(255) NOT NULL DEFAULT '',
+    status VARCHAR(255) NOT NULL DEFAULT '',
+    total DOUBLE PRECISION NOT NULL DEFAULT 0,
+    quantidade BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_resumo_mensal UNIQUE (usuario_id, ano, mes, lancamento, categoria, tipo, status)
+);
+
+-- Preenche o resumo com os dados que ja existem
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'DESPESA',
+       COALESCE(categoria, ''), COALESCE(tipo, ''), COALESCE(status, ''),
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM despesas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data),
+         COALESCE(categoria, ''), COALESCE(tipo, ''), COALESCE(status, '');
+
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'RECEITA',
+       '', COALESCE(tipo, ''), '',
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM receitas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), COALESCE(tipo, '');
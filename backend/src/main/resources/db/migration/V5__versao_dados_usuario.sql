@@ -0,0 +1,7 @@
+-- ===========================================
+-- Versao dos dados de cada usuario. Eh incrementada a cada escrita
+-- (despesas, receitas, investimentos e metas) e usada para gerar o ETag
+-- das consultas: se a versao nao mudou, a API responde 304 sem recalcular nada.
+-- ===========================================
+
+ALTER TABLE usuarios ADD COLUMN versao_dados BIGINT NOT NULL DEFAULT 0;
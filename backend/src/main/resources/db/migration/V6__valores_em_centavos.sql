@@ -0,0 +1,37 @@
+-- ===========================================
+-- Valores em dinheiro passam a ser guardados em centavos (BIGINT),
+-- sem o erro de arredondamento do DOUBLE PRECISION. A aplicacao
+-- converte para reais no JSON (ver Dinheiro e DinheiroConverter).
+-- ===========================================
+
+ALTER TABLE despesas ALTER COLUMN valor TYPE BIGINT USING ROUND(valor * 100);
+ALTER TABLE receitas ALTER COLUMN valor TYPE BIGINT USING ROUND(valor * 100);
+ALTER TABLE investimentos ALTER COLUMN valor_investido TYPE BIGINT USING ROUND(valor_investido * 100);
+ALTER TABLE metas ALTER COLUMN valor_meta TYPE BIGINT USING ROUND(valor_meta * 100);
+ALTER TABLE metas ALTER COLUMN valor_atual TYPE BIGINT USING ROUND(valor_atual * 100);
+ALTER TABLE metas ALTER COLUMN aporte_mensal TYPE BIGINT USING ROUND(aporte_mensal * 100);
+
+-- O resumo eh refeito a partir dos valores ja convertidos: converter as somas
+-- antigas levaria junto a diferenca acumulada pelo double
+ALTER TABLE resumo_mensal ALTER COLUMN total TYPE BIGINT USING ROUND(total * 100);
+DELETE FROM resumo_mensal;
+
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'DESPESA',
+       COALESCE(categoria, ''), COALESCE(tipo, ''), COALESCE(status, ''),
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM despesas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data),
+         COALESCE(categoria, ''), COALESCE(tipo, ''), COALESCE(status, '');
+
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'RECEITA',
+       '', COALESCE(tipo, ''), '',
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM receitas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), COALESCE(tipo, '');
+
+-- Os ETags ja enviados foram gerados com os valores antigos
+UPDATE usuarios SET versao_dados = versao_dados + 1;
@@ -0,0 +1,88 @@
+-- ===========================================
+-- Categoria, tipo, forma de pagamento e status passam de texto livre para
+-- SMALLINT com o codigo do enum (ver CategoriaDespesa, TipoLancamento,
+-- FormaPagamento e StatusDespesa). Linha e indices ficam menores e o
+-- dashboard soma por codigo em vez de comparar texto.
+--
+-- O texto antigo eh comparado sem acento, maiusculas e espacos, entao
+-- "Variavel", "Variável" e "VARIAVEL" viram o mesmo codigo. Categoria
+-- desconhecida vira "Outros" (9); tipo, forma e status desconhecidos
+-- ficam vazios (NULL).
+-- ===========================================
+
+CREATE FUNCTION pg_temp.normalizar(texto VARCHAR) RETURNS VARCHAR AS $$
+    SELECT regexp_replace(lower(translate(texto,
+        'áàâãäéèêëíìîïóòôõöúùûüçÁÀÂÃÄÉÈÊËÍÌÎÏÓÒÔÕÖÚÙÛÜÇ',
+        'aaaaaeeeeiiiiooooouuuucAAAAAEEEEIIIIOOOOOUUUUC')), '[^a-z0-9]', '', 'g')
+$$ LANGUAGE SQL IMMUTABLE;
+
+ALTER TABLE despesas
+    ALTER COLUMN categoria TYPE SMALLINT USING CASE
+        WHEN categoria IS NULL OR pg_temp.normalizar(categoria) = '' THEN NULL
+        WHEN pg_temp.normalizar(categoria) = 'moradia' THEN 1
+        WHEN pg_temp.normalizar(categoria) = 'alimentacao' THEN 2
+        WHEN pg_temp.normalizar(categoria) = 'transporte' THEN 3
+        WHEN pg_temp.normalizar(categoria) = 'saude' THEN 4
+        WHEN pg_temp.normalizar(categoria) = 'educacao' THEN 5
+        WHEN pg_temp.normalizar(categoria) = 'lazer' THEN 6
+        WHEN pg_temp.normalizar(categoria) = 'vestuario' THEN 7
+        WHEN pg_temp.normalizar(categoria) IN ('investimentos', 'investimento') THEN 8
+        ELSE 9
+    END,
+    ALTER COLUMN tipo TYPE SMALLINT USING CASE pg_temp.normalizar(tipo)
+        WHEN 'fixa' THEN 1 WHEN 'fixo' THEN 1
+        WHEN 'variavel' THEN 2
+    END,
+    ALTER COLUMN forma_pagamento TYPE SMALLINT USING CASE pg_temp.normalizar(forma_pagamento)
+        WHEN 'dinheiro' THEN 1
+        WHEN 'pix' THEN 2
+        WHEN 'cartaocredito' THEN 3 WHEN 'credito' THEN 3 WHEN 'cartaodecredito' THEN 3
+        WHEN 'cartaodebito' THEN 4 WHEN 'debito' THEN 4 WHEN 'cartaodedebito' THEN 4
+        WHEN 'transferencia' THEN 5 WHEN 'ted' THEN 5 WHEN 'doc' THEN 5
+        WHEN 'boleto' THEN 6
+    END,
+    ALTER COLUMN status TYPE SMALLINT USING CASE pg_temp.normalizar(status)
+        WHEN 'pago' THEN 1 WHEN 'paga' THEN 1
+        WHEN 'pendente' THEN 2
+    END;
+
+ALTER TABLE receitas
+    ALTER COLUMN tipo TYPE SMALLINT USING CASE pg_temp.normalizar(tipo)
+        WHEN 'fixa' THEN 1 WHEN 'fixo' THEN 1
+        WHEN 'variavel' THEN 2
+    END;
+
+-- No resumo, campo vazio passa de '' para 0. O resumo eh refeito a partir
+-- dos codigos (grafias diferentes da mesma opcao caem no mesmo grupo)
+DELETE FROM resumo_mensal;
+
+ALTER TABLE resumo_mensal
+    ALTER COLUMN categoria DROP DEFAULT,
+    ALTER COLUMN tipo DROP DEFAULT,
+    ALTER COLUMN status DROP DEFAULT,
+    ALTER COLUMN categoria TYPE SMALLINT USING 0,
+    ALTER COLUMN tipo TYPE SMALLINT USING 0,
+    ALTER COLUMN status TYPE SMALLINT USING 0,
+    ALTER COLUMN categoria SET DEFAULT 0,
+    ALTER COLUMN tipo SET DEFAULT 0,
+    ALTER COLUMN status SET DEFAULT 0;
+
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'DESPESA',
+       COALESCE(categoria, 0), COALESCE(tipo, 0), COALESCE(status, 0),
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM despesas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data),
+         COALESCE(categoria, 0), COALESCE(tipo, 0), COALESCE(status, 0);
+
+INSERT INTO resumo_mensal (usuario_id, ano, mes, lancamento, categoria, tipo, status, total, quantidade)
+SELECT usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), 'RECEITA',
+       0, COALESCE(tipo, 0), 0,
+       COALESCE(SUM(valor), 0), COUNT(*)
+FROM receitas
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL
+GROUP BY usuario_id, EXTRACT(YEAR FROM data), EXTRACT(MONTH FROM data), COALESCE(tipo, 0);
+
+-- As respostas ja enviadas tinham os textos antigos
+UPDATE usuarios SET versao_dados = versao_dados + 1;
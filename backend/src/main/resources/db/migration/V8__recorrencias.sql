@@ -0,0 +1,38 @@
+-- ===========================================
+-- Recorrencias: despesas e receitas fixas (aluguel, salario...) que se
+-- repetem todo mes. Um job gera os lancamentos de cada mes a partir
+-- destas regras, entao o usuario nao precisa cadastrar de novo.
+-- ===========================================
+
+CREATE TABLE recorrencias (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    -- 'DESPESA' ou 'RECEITA'
+    lancamento VARCHAR(10) NOT NULL,
+    -- Descricao da despesa ou fonte da receita
+    descricao VARCHAR(255),
+    -- Codigos dos enums (so para despesas)
+    categoria SMALLINT,
+    forma_pagamento SMALLINT,
+    valor BIGINT NOT NULL,
+    -- Dia do lancamento (nos meses mais curtos vira o ultimo dia do mes)
+    dia_do_mes INTEGER NOT NULL CHECK (dia_do_mes BETWEEN 1 AND 31),
+    inicio DATE NOT NULL,
+    -- Ultimo dia em que a regra vale (NULL = sem fim)
+    fim DATE,
+    -- Primeiro dia do ultimo mes que o job ja gerou (NULL = nenhum ainda)
+    ultimo_mes_gerado DATE
+);
+
+CREATE INDEX idx_recorrencias_usuario ON recorrencias (usuario_id);
+
+-- Ponto de parada do job de geracao: o job percorre os usuarios em ordem de id,
+-- um bloco por transacao, e grava aqui o ultimo usuario do bloco. Se parar no
+-- meio (deploy, queda), a proxima execucao continua desse usuario.
+CREATE TABLE geracao_recorrencias (
+    -- Primeiro dia do mes ate onde a execucao gera
+    mes DATE PRIMARY KEY,
+    ultimo_usuario_id BIGINT NOT NULL DEFAULT 0,
+    concluida BOOLEAN NOT NULL DEFAULT FALSE,
+    atualizada_em TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,32 @@
+-- ===========================================
+-- Historico de cada investimento: aportes, resgates e avaliacoes (quanto
+-- a posicao valia na data). A rentabilidade (XIRR e TWR) sai desse
+-- historico, em vez de um percentual digitado a mao.
+-- ===========================================
+
+CREATE TABLE movimentos_investimento (
+    id BIGSERIAL PRIMARY KEY,
+    investimento_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    -- Codigo do TipoMovimento: 1 = aporte, 2 = resgate, 3 = avaliacao
+    tipo SMALLINT NOT NULL,
+    -- Centavos: valor do aporte/resgate, ou valor da posicao na avaliacao
+    valor BIGINT NOT NULL CHECK (valor >= 0)
+);
+
+CREATE INDEX idx_movimentos_investimento_usuario ON movimentos_investimento (usuario_id, investimento_id, data);
+
+-- Os investimentos que ja existem ganham um aporte com o valor investido e,
+-- quando tem rentabilidade real, uma avaliacao com o patrimonio de hoje
+-- (o mesmo calculo do dashboard).
+INSERT INTO movimentos_investimento (investimento_id, usuario_id, data, tipo, valor)
+SELECT id, usuario_id, COALESCE(data_aporte, CURRENT_DATE), 1, valor_investido
+FROM investimentos
+WHERE usuario_id IS NOT NULL AND valor_investido > 0;
+
+INSERT INTO movimentos_investimento (investimento_id, usuario_id, data, tipo, valor)
+SELECT id, usuario_id, GREATEST(COALESCE(data_aporte, CURRENT_DATE), CURRENT_DATE), 3,
+       GREATEST(ROUND(valor_investido * (1 + rentabilidade_real / 100.0)), 0)
+FROM investimentos
+WHERE usuario_id IS NOT NULL AND valor_investido > 0 AND rentabilidade_real IS NOT NULL;
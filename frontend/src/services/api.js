@@ -69,5 +69,7 @@ export const deletarMeta = (id) => api.delete(`/metas/${id}`)
 // Funcoes de Dashboard
 // =====================
 export const getDashboard = (mes, ano) => api.get(`/dashboard?mes=${mes}&ano=${ano}`)
+// de/ate no formato AAAA-MM (ex: '2026-01')
+export const getTendencia = (de, ate) => api.get(`/dashboard/tendencia?de=${de}&ate=${ate}`)
 
 export default api